@@ -0,0 +1,138 @@
+package com.bhram.chess2;
+
+/**
+ * AttackMap keeps, for both colors, the set of attacked squares and the
+ * number of pieces attacking each square. It is kept up to date by its
+ * Position (see Position.trackAttacks) one piece at a time: when a piece
+ * is placed or removed, only its own attacks and those of the sliders
+ * whose rays run through that square are recomputed. Asking whether a
+ * square is attacked, or by how many pieces, is then a lookup.
+ *
+ * Attacks include squares held by the attacker's own pieces (defended
+ * squares), matching Attacks.of.
+ */
+public final class AttackMap {
+
+    // Squares attacked by the piece standing on each square (0 for an empty square)
+    private final long[] attacksFrom = new long[64];
+    // Attacker count per square, White's in 0-63 and Black's in 64-127
+    private final int[] counts = new int[128];
+    private final long[] attacked = new long[2];
+
+    AttackMap() {
+    }
+
+    /**
+     * Squares attacked by at least one piece of the given color, as a bitboard
+     */
+    public long attackedBy(Piece.Color color) {
+        return attacked[color.ordinal()];
+    }
+
+    public boolean isAttacked(Piece.Color byColor, int square) {
+        return (attacked[byColor.ordinal()] & Position.bit(square)) != 0;
+    }
+
+    /**
+     * Number of pieces of the given color attacking a square
+     */
+    public int attackerCount(Piece.Color byColor, int square) {
+        return counts[(byColor.ordinal() << 6) | square];
+    }
+
+    /**
+     * Squares attacked by the piece on the given square, as a bitboard
+     */
+    public long attacksFrom(int square) {
+        return attacksFrom[square];
+    }
+
+    /**
+     * Recomputes the whole map from the pieces on the board
+     */
+    void rebuild(Position position) {
+        reset();
+        long occupied = position.occupied();
+        for (Piece.Color color : Piece.Color.values()) {
+            for (int i = 0; i < position.pieceCount(color); i++) {
+                int square = position.pieceSquare(color, i);
+                attacksFrom[square] = Attacks.of(position.getPiece(square), square, occupied);
+                add(color.ordinal(), attacksFrom[square]);
+            }
+        }
+    }
+
+    void reset() {
+        for (int sq = 0; sq < 64; sq++) {
+            attacksFrom[sq] = 0L;
+        }
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = 0;
+        }
+        attacked[0] = 0L;
+        attacked[1] = 0L;
+    }
+
+    /**
+     * Called after a piece has been placed on a square
+     */
+    void piecePlaced(Position position, int square, Piece piece) {
+        // Sliders that saw through the square are now blocked there
+        refreshSliders(position, square);
+        attacksFrom[square] = Attacks.of(piece, square, position.occupied());
+        add(piece.getColor().ordinal(), attacksFrom[square]);
+    }
+
+    /**
+     * Called after the piece on a square has been removed
+     */
+    void pieceRemoved(Position position, int square, Piece piece) {
+        remove(piece.getColor().ordinal(), attacksFrom[square]);
+        attacksFrom[square] = 0L;
+        // Sliders that were blocked on the square now see past it
+        refreshSliders(position, square);
+    }
+
+    private void refreshSliders(Position position, int square) {
+        long occupied = position.occupied();
+        long queens = position.pieces(Piece.Color.WHITE, Piece.Type.QUEEN) | position.pieces(Piece.Color.BLACK, Piece.Type.QUEEN);
+        long straight = position.pieces(Piece.Color.WHITE, Piece.Type.ROOK) | position.pieces(Piece.Color.BLACK, Piece.Type.ROOK) | queens;
+        long diagonal = position.pieces(Piece.Color.WHITE, Piece.Type.BISHOP) | position.pieces(Piece.Color.BLACK, Piece.Type.BISHOP) | queens;
+        long sliders = (Attacks.rook(square, occupied) & straight) | (Attacks.bishop(square, occupied) & diagonal);
+        while (sliders != 0) {
+            int from = Long.numberOfTrailingZeros(sliders);
+            sliders &= sliders - 1;
+            Piece slider = position.getPiece(from);
+            long before = attacksFrom[from];
+            long after = Attacks.of(slider, from, occupied);
+            if (after != before) {
+                int color = slider.getColor().ordinal();
+                remove(color, before & ~after);
+                add(color, after & ~before);
+                attacksFrom[from] = after;
+            }
+        }
+    }
+
+    private void add(int color, long squares) {
+        int base = color << 6;
+        while (squares != 0) {
+            int sq = Long.numberOfTrailingZeros(squares);
+            squares &= squares - 1;
+            if (counts[base | sq]++ == 0) {
+                attacked[color] |= Position.bit(sq);
+            }
+        }
+    }
+
+    private void remove(int color, long squares) {
+        int base = color << 6;
+        while (squares != 0) {
+            int sq = Long.numberOfTrailingZeros(squares);
+            squares &= squares - 1;
+            if (--counts[base | sq] == 0) {
+                attacked[color] &= ~Position.bit(sq);
+            }
+        }
+    }
+}
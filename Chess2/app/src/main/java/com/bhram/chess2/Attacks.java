@@ -0,0 +1,240 @@
+package com.bhram.chess2;
+
+/**
+ * Attacks holds precomputed attack tables for every piece type.
+ * Knight, king and pawn attacks are a single array lookup. Rook and bishop
+ * attacks use magic bitboards: the blockers on a slider's rays are masked,
+ * multiplied by a per-square magic number and shifted down to an index
+ * into a table of attack sets, so no ray is ever walked at move time.
+ *
+ * Squares use the same numbering as Position (row * 8 + col).
+ */
+public final class Attacks {
+
+    private static final long[] ROOK_MAGICS = {
+        0x1680082040008010L, 0x0480200040008211L, 0x42002010800A0040L, 0x2080100280040800L,
+        0x0200080200042011L, 0x0200010200080410L, 0x8200020000B80114L, 0x01000020C2128900L,
+        0xA110800080204000L, 0x2010400050002008L, 0x0002001200402082L, 0x2100800800801000L,
+        0x4441802800800400L, 0x0810800200800400L, 0x8A05000402000100L, 0x000080178002E100L,
+        0x2040008020800040L, 0x0810004020004010L, 0x0001848020021000L, 0x0401090021001000L,
+        0x0010808008000402L, 0x8010808004000200L, 0x2100040002485001L, 0x200C220011008044L,
+        0x1040002080008048L, 0x00C0004080802000L, 0x4901004100200018L, 0x0050040040400800L,
+        0x0004000480080080L, 0x8001000900040002L, 0x0000105400110802L, 0xF580210200009044L,
+        0x0100400020800080L, 0x4800200080804002L, 0x9A0A002042001084L, 0x0020080080801000L,
+        0x0108000401800880L, 0x1002008022800400L, 0x0090810804000210L, 0x0200140082000051L,
+        0x8880800040008025L, 0x4010004020084000L, 0x4390002804002002L, 0x0081001000A30008L,
+        0x0000080011010004L, 0x8806000400808100L, 0x0001100A88040029L, 0x8888041884420021L,
+        0x0000400020801280L, 0x0006004025008200L, 0x0210001020008080L, 0x6441001000210900L,
+        0x0800040008008280L, 0x0081000208040100L, 0x20004108105A0C00L, 0x008201004400A200L,
+        0x00C100201A028042L, 0x0040410020120082L, 0x9290120208804022L, 0x888101A010007C09L,
+        0x4022000410082002L, 0x1042000841049002L, 0x0080014800821004L, 0x0088040040810022L
+    };
+
+    private static final long[] BISHOP_MAGICS = {
+        0x5410010208124300L, 0x0020441080810000L, 0x81C1040500430002L, 0x1084040088150002L,
+        0x0002121000400050L, 0x040A412021102C08L, 0x2004088228A0000CL, 0x588100480C843064L,
+        0x0008441828412400L, 0x0000024801010201L, 0x4810120410460020L, 0x0400040420800050L,
+        0x0502308820400000L, 0x0410084410040808L, 0x102010A828080400L, 0x2008010592052021L,
+        0x085114A042104320L, 0x2004102004041044L, 0x1010024101020010L, 0x4000800802084000L,
+        0x0101002820082000L, 0x000340120310A000L, 0x0404008203140B00L, 0x0050200049041000L,
+        0x8890041040880200L, 0x0001208004240400L, 0x0002120891080200L, 0x0004080000202040L,
+        0x0041001201004000L, 0xC008020042248400L, 0x82080082410488C0L, 0x0014004002220A00L,
+        0x094A104004242801L, 0x2001045000021060L, 0x5000404040081204L, 0x0008020082080080L,
+        0x101544040008C100L, 0x4010900084810080L, 0x20040810500A0D04L, 0x2011084100408400L,
+        0x14D0901008001045L, 0x000884018800A000L, 0x0011008050102500L, 0x0010002214000800L,
+        0x008308220820A400L, 0x4028101002105421L, 0x0010301E00904040L, 0x0084080210208042L,
+        0x900100B03008C091L, 0x0821028219200000L, 0x0042002402080202L, 0x0200880084044003L,
+        0x91061011320A008CL, 0x1208081070A08002L, 0x01210E260A04200CL, 0x0005344084010040L,
+        0x8101004042084004L, 0x0010014404092804L, 0x0008541214840414L, 0xA218040020420200L,
+        0x02804C8411021204L, 0x2008000408100444L, 0x0004110288080088L, 0x0002028226020200L
+    };
+
+    private static final int[][] ROOK_DIRECTIONS = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
+    private static final int[][] BISHOP_DIRECTIONS = {{-1, -1}, {-1, 1}, {1, -1}, {1, 1}};
+
+    private static final long[] KNIGHT_ATTACKS = new long[64];
+    private static final long[] KING_ATTACKS = new long[64];
+    private static final long[][] PAWN_ATTACKS = new long[2][64];
+
+    private static final long[] ROOK_MASKS = new long[64];
+    private static final int[] ROOK_SHIFTS = new int[64];
+    private static final int[] ROOK_OFFSETS = new int[64];
+    private static final long[] ROOK_TABLE;
+
+    private static final long[] BISHOP_MASKS = new long[64];
+    private static final int[] BISHOP_SHIFTS = new int[64];
+    private static final int[] BISHOP_OFFSETS = new int[64];
+    private static final long[] BISHOP_TABLE;
+
+    private static final long[][] BETWEEN = new long[64][64];
+    private static final long[][] LINE = new long[64][64];
+
+    static {
+        int[][] knightSteps = {{-2, -1}, {-2, 1}, {-1, -2}, {-1, 2}, {1, -2}, {1, 2}, {2, -1}, {2, 1}};
+        int[][] kingSteps = {{-1, -1}, {-1, 0}, {-1, 1}, {0, -1}, {0, 1}, {1, -1}, {1, 0}, {1, 1}};
+        int[][] whitePawnSteps = {{-1, -1}, {-1, 1}};
+        int[][] blackPawnSteps = {{1, -1}, {1, 1}};
+        for (int sq = 0; sq < 64; sq++) {
+            KNIGHT_ATTACKS[sq] = stepAttacks(sq, knightSteps);
+            KING_ATTACKS[sq] = stepAttacks(sq, kingSteps);
+            PAWN_ATTACKS[Piece.Color.WHITE.ordinal()][sq] = stepAttacks(sq, whitePawnSteps);
+            PAWN_ATTACKS[Piece.Color.BLACK.ordinal()][sq] = stepAttacks(sq, blackPawnSteps);
+        }
+        ROOK_TABLE = initSlider(ROOK_DIRECTIONS, ROOK_MAGICS, ROOK_MASKS, ROOK_SHIFTS, ROOK_OFFSETS);
+        BISHOP_TABLE = initSlider(BISHOP_DIRECTIONS, BISHOP_MAGICS, BISHOP_MASKS, BISHOP_SHIFTS, BISHOP_OFFSETS);
+
+        for (int a = 0; a < 64; a++) {
+            for (int b = 0; b < 64; b++) {
+                long ends = Position.bit(a) | Position.bit(b);
+                if (a != b && (rook(a, 0L) & Position.bit(b)) != 0) {
+                    BETWEEN[a][b] = rook(a, Position.bit(b)) & rook(b, Position.bit(a));
+                    LINE[a][b] = (rook(a, 0L) & rook(b, 0L)) | ends;
+                } else if (a != b && (bishop(a, 0L) & Position.bit(b)) != 0) {
+                    BETWEEN[a][b] = bishop(a, Position.bit(b)) & bishop(b, Position.bit(a));
+                    LINE[a][b] = (bishop(a, 0L) & bishop(b, 0L)) | ends;
+                }
+            }
+        }
+    }
+
+    private Attacks() {
+    }
+
+    public static long knight(int square) {
+        return KNIGHT_ATTACKS[square];
+    }
+
+    public static long king(int square) {
+        return KING_ATTACKS[square];
+    }
+
+    /**
+     * Squares attacked by a pawn of the given color on the given square
+     */
+    public static long pawn(Piece.Color color, int square) {
+        return PAWN_ATTACKS[color.ordinal()][square];
+    }
+
+    public static long rook(int square, long occupied) {
+        return ROOK_TABLE[ROOK_OFFSETS[square]
+                + (int) (((occupied & ROOK_MASKS[square]) * ROOK_MAGICS[square]) >>> ROOK_SHIFTS[square])];
+    }
+
+    public static long bishop(int square, long occupied) {
+        return BISHOP_TABLE[BISHOP_OFFSETS[square]
+                + (int) (((occupied & BISHOP_MASKS[square]) * BISHOP_MAGICS[square]) >>> BISHOP_SHIFTS[square])];
+    }
+
+    public static long queen(int square, long occupied) {
+        return rook(square, occupied) | bishop(square, occupied);
+    }
+
+    /**
+     * Squares strictly between two squares on a shared rank, file or diagonal (empty otherwise)
+     */
+    public static long between(int a, int b) {
+        return BETWEEN[a][b];
+    }
+
+    /**
+     * The whole rank, file or diagonal through two squares, edge to edge (empty if they don't share one)
+     */
+    public static long line(int a, int b) {
+        return LINE[a][b];
+    }
+
+    /**
+     * Squares a piece attacks from the given square with the given occupancy
+     */
+    public static long of(Piece piece, int square, long occupied) {
+        switch (piece.getType()) {
+            case PAWN:
+                return pawn(piece.getColor(), square);
+            case ROOK:
+                return rook(square, occupied);
+            case KNIGHT:
+                return knight(square);
+            case BISHOP:
+                return bishop(square, occupied);
+            case QUEEN:
+                return queen(square, occupied);
+            case KING:
+                return king(square);
+            default:
+                return 0L;
+        }
+    }
+
+    private static long stepAttacks(int square, int[][] steps) {
+        long attacks = 0L;
+        for (int[] step : steps) {
+            int r = Position.row(square) + step[0];
+            int c = Position.col(square) + step[1];
+            if (r >= 0 && r < 8 && c >= 0 && c < 8) {
+                attacks |= Position.bit(Position.square(r, c));
+            }
+        }
+        return attacks;
+    }
+
+    /**
+     * Walks the rays from a square, stopping at the first blocker. Only used to fill the tables.
+     */
+    private static long slowSlidingAttacks(int square, long occupied, int[][] directions) {
+        long attacks = 0L;
+        for (int[] direction : directions) {
+            int r = Position.row(square) + direction[0];
+            int c = Position.col(square) + direction[1];
+            while (r >= 0 && r < 8 && c >= 0 && c < 8) {
+                long b = Position.bit(Position.square(r, c));
+                attacks |= b;
+                if ((occupied & b) != 0) {
+                    break;
+                }
+                r += direction[0];
+                c += direction[1];
+            }
+        }
+        return attacks;
+    }
+
+    /**
+     * Relevant blocker squares for a slider: its rays without the board edge at the end of each ray
+     */
+    private static long relevantMask(int square, int[][] directions) {
+        long mask = 0L;
+        for (int[] direction : directions) {
+            int r = Position.row(square) + direction[0];
+            int c = Position.col(square) + direction[1];
+            while (r + direction[0] >= 0 && r + direction[0] < 8 && c + direction[1] >= 0 && c + direction[1] < 8) {
+                mask |= Position.bit(Position.square(r, c));
+                r += direction[0];
+                c += direction[1];
+            }
+        }
+        return mask;
+    }
+
+    private static long[] initSlider(int[][] directions, long[] magics, long[] masks, int[] shifts, int[] offsets) {
+        int size = 0;
+        for (int sq = 0; sq < 64; sq++) {
+            masks[sq] = relevantMask(sq, directions);
+            int bits = Long.bitCount(masks[sq]);
+            shifts[sq] = 64 - bits;
+            offsets[sq] = size;
+            size += 1 << bits;
+        }
+
+        long[] table = new long[size];
+        for (int sq = 0; sq < 64; sq++) {
+            // Enumerate every subset of the mask (Carry-Rippler trick)
+            long subset = 0L;
+            do {
+                int index = (int) ((subset * magics[sq]) >>> shifts[sq]);
+                table[offsets[sq] + index] = slowSlidingAttacks(sq, subset, directions);
+                subset = (subset - masks[sq]) & masks[sq];
+            } while (subset != 0);
+        }
+        return table;
+    }
+}
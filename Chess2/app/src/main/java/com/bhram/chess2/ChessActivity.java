@@ -42,6 +42,7 @@ public class ChessActivity extends AppCompatActivity {
     private Piece.Color currentPlayerInClock;
     private int[] lastMoveFrom= null;
     private int[] lastMoveTo = null;
+    private final MoveList selectedMoves = new MoveList();
     private Piece[][] previousBoardState = new Piece[8][8];
     private boolean isCaptureMove = false;
     private MediaPlayer moveSound;
@@ -238,16 +239,7 @@ public class ChessActivity extends AppCompatActivity {
     
     private void goBackMove() {
         if (game.canGoBack()) {
-            // Debug: Log current state before going back
-            System.out.println("DEBUG: Before goBack - currentMoveIndex: " + (game.isNavigating() ? "navigating" : "not navigating"));
-            System.out.println("DEBUG: Before goBack - moveHistory size: " + game.getMoveHistory().size());
-            
             game.goBack();
-            
-            // Debug: Log state after going back
-            System.out.println("DEBUG: After goBack - currentMoveIndex: " + (game.isNavigating() ? "navigating" : "not navigating"));
-            System.out.println("DEBUG: After goBack - moveHistory size: " + game.getMoveHistory().size());
-            
             updateBoard();
             // Show the correct move number - if navigating, show the move index + 1
             int moveNumber = game.isNavigating() ? (game.getCurrentMoveNumber() - 1) : (game.getCurrentMoveNumber() - 1);
@@ -390,21 +382,11 @@ public class ChessActivity extends AppCompatActivity {
     }
 
     private void updateBoard() {
-        java.util.List<int[]> validMoves = null;
+        MoveList validMoves = null;
 
         if (game.isPieceSelected()) {
-            validMoves = game.getValidMoves(game.getSelectedRow(), game.getSelectedCol());
-
-            Piece selectedPiece = game.getPiece(game.getSelectedRow(), game.getSelectedCol());
-            if (selectedPiece != null && selectedPiece.getType() == Piece.Type.KING) {
-                java.util.List<int[]> castlingMoves = game.getCastlingMoves(game.getSelectedRow(), game.getSelectedCol());
-                if (castlingMoves != null && !castlingMoves.isEmpty()) {
-                    if (validMoves == null) {
-                        validMoves = new java.util.ArrayList<>();
-                    }
-                    validMoves.addAll(castlingMoves);
-                }
-            }
+            // Castling moves are included: the king's legal moves already contain them
+            validMoves = game.getValidMoves(game.getSelectedRow(), game.getSelectedCol(), selectedMoves);
         }
         
         for (int row = 0; row < 8; row++) {
@@ -417,15 +399,7 @@ public class ChessActivity extends AppCompatActivity {
                     // Note: We can't easily change the background of the RelativeLayout parent here
                     // The background is set in createBoardSquares and should remain consistent
                     
-                    boolean isValidMove = false;
-                    if (validMoves != null) {
-                        for (int[] move : validMoves) {
-                            if (move[0] == row && move[1] == col) {
-                                isValidMove = true;
-                                break;
-                            }
-                        }
-                    }
+                    boolean isValidMove = validMoves != null && validMoves.containsTarget(Position.square(row, col));
 
                     Piece piece = game.getPiece(row, col);
                     boolean isNewPosition = lastMoveTo != null && lastMoveTo[0] == row && lastMoveTo[1] == col;
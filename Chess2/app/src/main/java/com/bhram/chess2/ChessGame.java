@@ -4,7 +4,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class ChessGame {
-    private Piece[][] board;
+    private Position position;
     private Piece.Color currentPlayer;
     private boolean pieceSelected;
     private int selectedRow;
@@ -12,69 +12,75 @@ public class ChessGame {
     private boolean gameOver;
     private String winner;
     private List<MoveRecord> moveHistory;
-    private int halfMoveClock;
-    private int fullMoveNumber;
-    private int lastDoublePawnMoveRow;
-    private int lastDoublePawnMoveCol;
+    private final MoveList legalMoves = new MoveList();
+
+    /**
+     * Default number of plies between the position snapshots kept for seekTo
+     */
+    public static final int DEFAULT_CHECKPOINT_INTERVAL = 16;
+
+    // Snapshot i is the position after i * checkpointInterval recorded moves
+    private final List<PositionSnapshot> checkpoints = new ArrayList<>();
+    private int checkpointInterval = DEFAULT_CHECKPOINT_INTERVAL;
 
     public ChessGame() {
-        board = new Piece[8][8];
+        position = new Position();
+        position.trackAttacks();
         currentPlayer = Piece.Color.WHITE;
         pieceSelected = false;
         gameOver = false;
         winner = null;
         moveHistory = new ArrayList<>();
-        halfMoveClock = 0;
-        fullMoveNumber = 1;
-        lastDoublePawnMoveRow = -1;
-        lastDoublePawnMoveCol = -1;
         currentMoveIndex = -1; // Initialize to -1 (at current game state)
         navigationPlayer = Piece.Color.WHITE;
         isNavigating = false;
         initializeBoard();
+        checkpoints.add(position.snapshot());
     }
 
-    private void initializeBoard() {
-        // Clear the entire board first
-        for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col++) {
-                board[row][col] = null;
-            }
-        }
-        
-        // Black pieces
-        board[0][0] = new Piece(Piece.Color.BLACK, Piece.Type.ROOK);
-        board[0][1] = new Piece(Piece.Color.BLACK, Piece.Type.KNIGHT);
-        board[0][2] = new Piece(Piece.Color.BLACK, Piece.Type.BISHOP);
-        board[0][3] = new Piece(Piece.Color.BLACK, Piece.Type.QUEEN);
-        board[0][4] = new Piece(Piece.Color.BLACK, Piece.Type.KING);
-        board[0][5] = new Piece(Piece.Color.BLACK, Piece.Type.BISHOP);
-        board[0][6] = new Piece(Piece.Color.BLACK, Piece.Type.KNIGHT);
-        board[0][7] = new Piece(Piece.Color.BLACK, Piece.Type.ROOK);
-        
-        for (int i = 0; i < 8; i++) {
-            board[1][i] = new Piece(Piece.Color.BLACK, Piece.Type.PAWN);
-        }
+    /**
+     * Creates a game starting from the position in a FEN string instead of the initial setup
+     */
+    public ChessGame(String fen) {
+        this();
+        position.setFromFen(fen);
+        currentPlayer = position.getSideToMove();
+        navigationPlayer = currentPlayer;
+        checkpoints.set(0, position.snapshot());
+    }
 
-        // White pieces
-        for (int i = 0; i < 8; i++) {
-            board[6][i] = new Piece(Piece.Color.WHITE, Piece.Type.PAWN);
-        }
-        board[7][0] = new Piece(Piece.Color.WHITE, Piece.Type.ROOK);
-        board[7][1] = new Piece(Piece.Color.WHITE, Piece.Type.KNIGHT);
-        board[7][2] = new Piece(Piece.Color.WHITE, Piece.Type.BISHOP);
-        board[7][3] = new Piece(Piece.Color.WHITE, Piece.Type.QUEEN);
-        board[7][4] = new Piece(Piece.Color.WHITE, Piece.Type.KING);
-        board[7][5] = new Piece(Piece.Color.WHITE, Piece.Type.BISHOP);
-        board[7][6] = new Piece(Piece.Color.WHITE, Piece.Type.KNIGHT);
-        board[7][7] = new Piece(Piece.Color.WHITE, Piece.Type.ROOK);
+    private void initializeBoard() {
+        position.setupInitialPosition();
     }
 
     public Piece getPiece(int row, int col) {
         if (row < 0 || row >= 8 || col < 0 || col >= 8) {
             return null;
         }
-        return board[row][col];
+        return position.getPiece(row, col);
+    }
+
+    /**
+     * Returns an independent copy of the current position, for example for the engine to search
+     */
+    public Position copyPosition() {
+        return new Position(position);
+    }
+
+    /**
+     * Describes the current position as a FEN string
+     */
+    public String getFen() {
+        return position.toFen();
+    }
+
+    /**
+     * 64-bit Zobrist key identifying the current position (pieces, side to move,
+     * castling rights and en passant file). It is updated incrementally by every
+     * move, so reading it costs nothing and allocates nothing.
+     */
+    public long getPositionKey() {
+        return position.getKey();
     }
 
     public Piece.Color getCurrentPlayer() {
@@ -114,7 +120,7 @@ public class ChessGame {
             return false;
         }
 
-        Piece piece = board[row][col];
+        Piece piece = position.getPiece(row, col);
         if (piece != null && piece.getColor() == currentPlayer) {
             selectedRow = row;
             selectedCol = col;
@@ -129,132 +135,108 @@ public class ChessGame {
             return false;
         }
 
-        Piece piece = board[selectedRow][selectedCol];
-
-        // Check for castling
-        boolean isCastling = false;
-        if (piece.getType() == Piece.Type.KING && Math.abs(toCol - selectedCol) == 2) {
-            boolean kingside = toCol > selectedCol;
-            isCastling = canCastle(piece.getColor(), kingside);
+        int from = Position.square(selectedRow, selectedCol);
+        int to = Position.square(toRow, toCol);
+        int move = findLegalMove(from, to);
+        if (move == Move.NONE) {
+            return false;
         }
+        return playMove(move);
+    }
 
-        // Check for en passant
-        boolean isEnPassant = false;
-        if (piece.getType() == Piece.Type.PAWN && Math.abs(selectedCol - toCol) == 1 && board[toRow][toCol] == null) {
-            isEnPassant = canEnPassant(selectedRow, selectedCol, toRow, toCol);
+    /**
+     * Plays a packed move (see Move), for example one chosen by the engine, recording
+     * it in the move history like a move made through selectPiece and movePiece.
+     * Returns false if the move is not legal in the current position.
+     */
+    public boolean playMove(int move) {
+        if (gameOver || isNavigating) {
+            return false;
         }
-
-        // Get valid moves for this piece (this includes check validation)
-        List<int[]> validMoves = getValidMoves(selectedRow, selectedCol);
-        
-        // Check if the requested move is in the list of valid moves
-        boolean isValidMove = false;
-        for (int[] move : validMoves) {
-            if (move[0] == toRow && move[1] == toCol) {
-                isValidMove = true;
-                break;
-            }
+        int from = Move.from(move);
+        int to = Move.to(move);
+        MoveGenerator.generateLegalMoves(position, currentPlayer, from, legalMoves);
+        if (!legalMoves.contains(move)) {
+            return false;
         }
+        int fromRow = Position.row(from);
+        int fromCol = Position.col(from);
+        int toRow = Position.row(to);
+        int toCol = Position.col(to);
 
-        if (isValidMove) {
-            // Execute castling if valid
-            if (isCastling) {
-                boolean kingside = toCol > selectedCol;
-                int row = selectedRow;
-                int rookCol = kingside ? 7 : 0;
-                int newRookCol = kingside ? 5 : 3;
-
-                // Move rook
-                Piece rook = board[row][rookCol];
-                board[row][newRookCol] = rook;
-                board[row][rookCol] = null;
-                rook.setHasMoved(true);
-            }
-            Piece capturedPiece = board[toRow][toCol];
-            
-            // Handle en passant capture
-            if (isEnPassant) {
-                executeEnPassant(selectedRow, selectedCol, toRow, toCol);
-                // The captured piece is the pawn that was captured en passant
-                capturedPiece = new Piece(currentPlayer == Piece.Color.WHITE ? Piece.Color.BLACK : Piece.Color.WHITE, Piece.Type.PAWN);
-            }
-
-            // Handle castling - move the king to the correct position
-            if (isCastling) {
-                boolean kingside = toCol > selectedCol;
-                int kingToCol = kingside ? 6 : 2;
-                board[selectedRow][kingToCol] = piece;
-                board[selectedRow][selectedCol] = null;
-                piece.setHasMoved(true);
-            } else {
-                // Normal move
-                if (capturedPiece != null && capturedPiece.getType() == Piece.Type.KING) {
-                    gameOver = true;
-                    winner = currentPlayer == Piece.Color.WHITE ? "White" : "Black";
-                }
-
-                // Move the piece
-                board[toRow][toCol] = piece;
-                board[selectedRow][selectedCol] = null;
-                piece.setHasMoved(true);
-            }
+        Piece piece = position.getPiece(from);
+        Piece capturedPiece = position.getPiece(to);
+        if (Move.isEnPassant(move)) {
+            // The captured pawn stands beside the moving pawn, not on the target square
+            capturedPiece = position.getPiece(fromRow, toCol);
+        }
 
-            // Track double pawn moves for en passant
-            if (piece.getType() == Piece.Type.PAWN && Math.abs(toRow - selectedRow) == 2) {
-                // Track the position of the pawn that moved 2 squares (the starting position)
-                lastDoublePawnMoveRow = selectedRow;
-                lastDoublePawnMoveCol = selectedCol;
-            } else {
-                lastDoublePawnMoveRow = -1;
-                lastDoublePawnMoveCol = -1;
-            }
+        MoveRecord moveRecord = new MoveRecord(fromRow, fromCol, toRow, toCol,
+                                             piece, capturedPiece, Move.isCastling(move), Move.isEnPassant(move),
+                                             Move.isPromotion(move), currentPlayer, move);
+        makeMove(move);
+        moveHistory.add(moveRecord);
+        if (moveHistory.size() == checkpoints.size() * checkpointInterval) {
+            checkpoints.add(position.snapshot());
+        }
+        pieceSelected = false;
 
-            // Update half-move clock
-            if (piece.getType() == Piece.Type.PAWN || capturedPiece != null) {
-                halfMoveClock = 0;
-            } else {
-                halfMoveClock++;
-            }
+        // Update navigation state - we're now at the current game state
+        currentMoveIndex = -1;
+        isNavigating = false;
 
-            // Update move history
-            MoveRecord moveRecord = new MoveRecord(selectedRow, selectedCol, toRow, toCol, 
-                                                 piece, capturedPiece, isCastling, isEnPassant, 
-                                                 false, currentPlayer);
-            moveHistory.add(moveRecord);
-
-            // Pawn promotion
-            if (piece.getType() == Piece.Type.PAWN) {
-                if ((piece.getColor() == Piece.Color.WHITE && toRow == 0) || 
-                    (piece.getColor() == Piece.Color.BLACK && toRow == 7)) {
-                    board[toRow][toCol] = new Piece(piece.getColor(), Piece.Type.QUEEN);
-                }
-            }
+        // Check for game end conditions in a single pass
+        GameOutcome outcome = getOutcome();
+        if (outcome == GameOutcome.CHECKMATE) {
+            gameOver = true;
+            winner = currentPlayer == Piece.Color.WHITE ? "Black" : "White";
+        } else if (outcome.isDraw()) {
+            gameOver = true;
+            winner = "Draw";
+        }
 
-            // Switch player
-            currentPlayer = currentPlayer == Piece.Color.WHITE ? Piece.Color.BLACK : Piece.Color.WHITE;
-            pieceSelected = false;
+        return true;
+    }
 
-            // Increment full move number after black's move
-            if (currentPlayer == Piece.Color.WHITE) {
-                fullMoveNumber++;
-            }
+    // Find the legal move between two squares, preferring a queen when a pawn promotes
+    private int findLegalMove(int from, int to) {
+        MoveGenerator.generateLegalMoves(position, currentPlayer, from, legalMoves);
+        return legalMoves.find(from, to);
+    }
 
-            // Update navigation state - we're now at the current game state
-            currentMoveIndex = -1;
-            isNavigating = false;
+    /**
+     * Applies a packed move (see Move) for the side to move. The move must be legal.
+     * This is an O(1), allocation-free state transition; it does not touch the
+     * recorded move history, selection or game-over state.
+     */
+    public void makeMove(int move) {
+        position.makeMove(move);
+        currentPlayer = position.getSideToMove();
+    }
 
-            // Check for game end conditions
-            if (ChessRules.isInCheckmate(board, currentPlayer)) {
-                gameOver = true;
-                winner = currentPlayer == Piece.Color.WHITE ? "Black" : "White";
-            } else if (isDraw()) {
-                gameOver = true;
-                winner = "Draw";
-            }
+    /**
+     * Reverts the last move applied with makeMove, restoring the captured piece,
+     * castling rights, en passant square and move counters exactly.
+     */
+    public void unmakeMove() {
+        position.unmakeMove();
+        currentPlayer = position.getSideToMove();
+    }
 
-            return true;
+    // Take back the last move played through movePiece
+    public boolean takeBack() {
+        if (isNavigating || moveHistory.isEmpty()) {
+            return false;
         }
-        return false;
+        unmakeMove();
+        moveHistory.remove(moveHistory.size() - 1);
+        if (checkpoints.size() > moveHistory.size() / checkpointInterval + 1) {
+            checkpoints.remove(checkpoints.size() - 1);
+        }
+        pieceSelected = false;
+        gameOver = false;
+        winner = null;
+        return true;
     }
 
     public void deselectPiece() {
@@ -262,8 +244,8 @@ public class ChessGame {
     }
 
     private boolean isValidMove(int fromRow, int fromCol, int toRow, int toCol) {
-        Piece piece = board[fromRow][fromCol];
-        Piece target = board[toRow][toCol];
+        Piece piece = position.getPiece(fromRow, fromCol);
+        Piece target = position.getPiece(toRow, toCol);
 
         // Can't capture own piece
         if (target != null && target.getColor() == piece.getColor()) {
@@ -276,12 +258,12 @@ public class ChessGame {
         }
 
         // Use ChessRules class for piece movement validation
-        if (!ChessRules.isValidPieceMove(board, piece, fromRow, fromCol, toRow, toCol)) {
+        if (!ChessRules.isValidPieceMove(position, piece, fromRow, fromCol, toRow, toCol)) {
             return false;
         }
 
         // Check if move puts own king in check
-        if (ChessRules.wouldPutKingInCheck(board, fromRow, fromCol, toRow, toCol, piece.getColor() == Piece.Color.WHITE)) {
+        if (ChessRules.wouldPutKingInCheck(position, fromRow, fromCol, toRow, toCol, piece.getColor() == Piece.Color.WHITE)) {
             return false;
         }
 
@@ -289,248 +271,96 @@ public class ChessGame {
     }
 
 
-    public List<int[]> getValidMoves(int row, int col) {
-        return ChessRules.getValidMoves(board, row, col, currentPlayer == Piece.Color.WHITE);
+    public MoveList getValidMoves(int row, int col) {
+        return getValidMoves(row, col, new MoveList());
+    }
+
+    // Fill a caller-owned list with the legal moves of a piece, reusing it across calls
+    public MoveList getValidMoves(int row, int col, MoveList moves) {
+        return ChessRules.getValidMoves(position, row, col, currentPlayer == Piece.Color.WHITE, moves);
     }
 
 
     // Check if castling is possible
     private boolean canCastle(Piece.Color color, boolean kingside) {
-        return ChessRules.canCastle(board, color, kingside);
+        return ChessRules.canCastle(position, color, kingside);
     }
 
     // Set castling moves
-    public List<int[]> getCastlingMoves(int row, int col) {
-        List<int[]> castlingMoves = new ArrayList<>();
-        Piece piece = board[row][col];
+    public MoveList getCastlingMoves(int row, int col) {
+        MoveList castlingMoves = new MoveList(2);
+        Piece piece = position.getPiece(row, col);
 
         if (piece == null || piece.getType() != Piece.Type.KING) {
             return castlingMoves;
         }
 
+        int from = Position.square(row, col);
         if (canCastle(piece.getColor(), true)) {
-            int toRow = row;
-            int toCol = 6;
-            castlingMoves.add(new int[]{toRow, toCol});
+            castlingMoves.add(Move.encode(from, Position.square(row, 6), Move.KING_CASTLE));
         }
 
         if (canCastle(piece.getColor(), false)) {
-            int toRow = row;
-            int toCol = 2;
-            castlingMoves.add(new int[]{toRow, toCol});
+            castlingMoves.add(Move.encode(from, Position.square(row, 2), Move.QUEEN_CASTLE));
         }
 
         return castlingMoves;
     }
 
-    // Check if en passant is possible
-    private boolean canEnPassant(int fromRow, int fromCol, int toRow, int toCol) {
-        return ChessRules.canEnPassant(board, fromRow, fromCol, toRow, toCol, lastDoublePawnMoveRow, lastDoublePawnMoveCol);
+    // Starting square of the pawn that just made a double move (-1 if none), as the
+    // ChessRules en passant checks expect it
+    private int lastDoublePawnMoveRow() {
+        int enPassantSquare = position.getEnPassantSquare();
+        if (enPassantSquare == Position.NO_SQUARE) {
+            return -1;
+        }
+        return Position.row(enPassantSquare) == 5 ? 6 : 1;
     }
 
-    // Execute en passant capture
-    private void executeEnPassant(int fromRow, int fromCol, int toRow, int toCol) {
-        int direction = (toRow - fromRow) > 0 ? 1 : -1;
-        int capturedRow = fromRow + direction;
-        int capturedCol = toCol;
-
-        // Remove the captured pawn
-        board[capturedRow][capturedCol] = null;
+    private int lastDoublePawnMoveCol() {
+        int enPassantSquare = position.getEnPassantSquare();
+        return enPassantSquare == Position.NO_SQUARE ? -1 : Position.col(enPassantSquare);
     }
 
-    // Check for threefold repetition
+    // Check for threefold repetition: the current position has been seen twice before
     public boolean isThreefoldRepetition() {
-        if (moveHistory.size() < 8) {
-            return false;
-        }
-
-        // Count occurrences of current board position
-        String currentPosition = getBoardPosition();
-        int count = 0;
-        
-        // Count how many times the current position appears in the move history
-        // We need to reconstruct the board state for each move to check for repetition
-        for (int i = 0; i < moveHistory.size(); i++) {
-            // Create a temporary board to check the position at move i
-            Piece[][] tempBoard = new Piece[8][8];
-            // Copy current board state
-            for (int row = 0; row < 8; row++) {
-                for (int col = 0; col < 8; col++) {
-                    tempBoard[row][col] = board[row][col];
-                }
-            }
-            
-            // Reconstruct board state at move i
-            for (int j = 0; j <= i; j++) {
-                MoveRecord record = moveHistory.get(j);
-                executeMoveFromRecordForRepetitionCheck(tempBoard, record);
-            }
-            
-            // Check if this position matches current position
-            String positionAtMove = getBoardPositionForBoard(tempBoard);
-            if (positionAtMove.equals(currentPosition)) {
-                count++;
-            }
-        }
-
-        return count >= 3;
-    }
-    
-    // Helper method to get board position for a specific board state
-    private String getBoardPositionForBoard(Piece[][] boardState) {
-        StringBuilder sb = new StringBuilder();
-        for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col++) {
-                Piece piece = boardState[row][col];
-                if (piece == null) {
-                    sb.append("-");
-                } else {
-                    sb.append(piece.getColor() == Piece.Color.WHITE ? "W" : "B");
-                    switch (piece.getType()) {
-                        case PAWN: sb.append("P"); break;
-                        case ROOK: sb.append("R"); break;
-                        case KNIGHT: sb.append("N"); break;
-                        case BISHOP: sb.append("B"); break;
-                        case QUEEN: sb.append("Q"); break;
-                        case KING: sb.append("K"); break;
-                    }
-                }
-            }
-        }
-        return sb.toString();
-    }
-    
-    // Helper method to execute move for repetition checking (doesn't modify actual game state)
-    private void executeMoveFromRecordForRepetitionCheck(Piece[][] boardState, MoveRecord record) {
-        int fromRow = record.getFromRow();
-        int fromCol = record.getFromCol();
-        int toRow = record.getToRow();
-        int toCol = record.getToCol();
-        Piece movingPiece = record.getMovingPiece();
-        
-        // Handle normal moves
-        boardState[toRow][toCol] = movingPiece;
-        boardState[fromRow][fromCol] = null;
-        
-        // Handle castling
-        if (record.isCastling()) {
-            int row = record.getPlayerColor() == Piece.Color.WHITE ? 7 : 0;
-            boolean kingside = toCol > fromCol;
-            
-            if (kingside) {
-                // Move rook from h-file to f-file
-                Piece rook = boardState[row][7];
-                boardState[row][5] = rook;
-                boardState[row][7] = null;
-            } else {
-                // Move rook from a-file to d-file
-                Piece rook = boardState[row][0];
-                boardState[row][3] = rook;
-                boardState[row][0] = null;
-            }
-        }
-        
-        // Handle en passant
-        if (record.isEnPassant()) {
-            int direction = (toRow - fromRow) > 0 ? 1 : -1;
-            int capturedRow = fromRow + direction;
-            int capturedCol = toCol;
-            boardState[capturedRow][capturedCol] = null;
-        }
+        return position.repetitionCount() >= 2;
     }
 
     // Check for fifty-move rule
     public boolean isFiftyMoveRule() {
-        return halfMoveClock >= 100; // 50 moves by each player = 100 half-moves
+        return position.getHalfMoveClock() >= 100; // 50 moves by each player = 100 half-moves
     }
 
     // Check for insufficient material
     public boolean isInsufficientMaterial() {
-        int whitePieces = 0;
-        int blackPieces = 0;
-        boolean whiteHasBishop = false;
-        boolean blackHasBishop = false;
-        boolean whiteHasKnight = false;
-        boolean blackHasKnight = false;
-
-        for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col++) {
-                Piece piece = board[row][col];
-                if (piece != null) {
-                    switch (piece.getType()) {
-                        case PAWN:
-                        case ROOK:
-                        case QUEEN:
-                            return false; // Game not drawn
-                        case BISHOP:
-                            if (piece.getColor() == Piece.Color.WHITE) {
-                                whiteHasBishop = true;
-                            } else {
-                                blackHasBishop = true;
-                            }
-                            break;
-                        case KNIGHT:
-                            if (piece.getColor() == Piece.Color.WHITE) {
-                                whiteHasKnight = true;
-                            } else {
-                                blackHasKnight = true;
-                            }
-                            break;
-                    }
-                }
-            }
-        }
-
-        // Check for insufficient material combinations
-        // King vs King
-        if (!whiteHasBishop && !whiteHasKnight && !blackHasBishop && !blackHasKnight) {
-            return true;
-        }
-        
-        // King + Bishop vs King
-        if ((whiteHasBishop && !whiteHasKnight && !blackHasBishop && !blackHasKnight) ||
-            (!whiteHasBishop && !whiteHasKnight && blackHasBishop && !blackHasKnight)) {
-            return true;
-        }
-        
-        // King + Knight vs King
-        if ((whiteHasKnight && !whiteHasBishop && !blackHasBishop && !blackHasKnight) ||
-            (!whiteHasBishop && !whiteHasKnight && blackHasKnight && !blackHasBishop)) {
-            return true;
-        }
+        return ChessRules.isInsufficientMaterial(position);
+    }
 
-        return false;
+    // Get the material on the board as a signature such as "KRPvKR"
+    public String getMaterialSignature() {
+        return Material.signature(position.getMaterialKey());
     }
 
-    // Get board position for repetition checking
-    private String getBoardPosition() {
-        StringBuilder sb = new StringBuilder();
-        for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col++) {
-                Piece piece = board[row][col];
-                if (piece == null) {
-                    sb.append("-");
-                } else {
-                    sb.append(piece.getColor() == Piece.Color.WHITE ? "W" : "B");
-                    switch (piece.getType()) {
-                        case PAWN: sb.append("P"); break;
-                        case ROOK: sb.append("R"); break;
-                        case KNIGHT: sb.append("N"); break;
-                        case BISHOP: sb.append("B"); break;
-                        case QUEEN: sb.append("Q"); break;
-                        case KING: sb.append("K"); break;
-                    }
-                }
-            }
+    /**
+     * Checks if the piece on a square can be won by its opponent through a series
+     * of captures on that square, for highlighting pieces left en prise
+     */
+    public boolean isPieceHanging(int row, int col) {
+        if (row < 0 || row >= 8 || col < 0 || col >= 8) {
+            return false;
         }
-        return sb.toString();
+        return StaticExchange.isHanging(position, Position.square(row, col));
     }
 
     // Check if game is drawn
     public boolean isDraw() {
-        // Check for stalemate of the opponent (the player whose turn it is now)
-        // After a move, currentPlayer has been switched to the opponent
-        return isThreefoldRepetition() || isFiftyMoveRule() || isInsufficientMaterial() || ChessRules.isInStalemate(board, currentPlayer);
+        return getOutcome().isDraw();
+    }
+
+    // Get whether the game is over for the player to move, and why
+    public GameOutcome getOutcome() {
+        return ChessRules.evaluateOutcome(position);
     }
 
     // Get move notation for move history
@@ -582,17 +412,17 @@ public class ChessGame {
 
     // Reset game
     public void resetGame() {
-        board = new Piece[8][8];
         currentPlayer = Piece.Color.WHITE;
         pieceSelected = false;
         gameOver = false;
         winner = null;
         moveHistory.clear();
-        halfMoveClock = 0;
-        fullMoveNumber = 1;
-        lastDoublePawnMoveRow = -1;
-        lastDoublePawnMoveCol = -1;
+        currentMoveIndex = -1;
+        navigationPlayer = Piece.Color.WHITE;
+        isNavigating = false;
         initializeBoard();
+        checkpoints.clear();
+        checkpoints.add(position.snapshot());
     }
 
     // Get move history
@@ -606,97 +436,97 @@ public class ChessGame {
         return moveStrings;
     }
     
-    // Navigation methods for move history
+    // Navigation methods for move history. While navigating, the board shows the
+    // position after move currentMoveIndex (-1 for the starting position); the moves
+    // after it stay in moveHistory and are replayed one make at a time.
     private int currentMoveIndex = -1;
     private Piece.Color navigationPlayer;
     private boolean isNavigating = false;
-    
+
+    // Number of recorded moves currently applied to the board
+    private int displayedMoveCount() {
+        return isNavigating ? currentMoveIndex + 1 : moveHistory.size();
+    }
+
     public boolean canGoBack() {
-        // Can go back if:
-        // 1. We're at current game state and there are moves (can go to position before last move)
-        // 2. We're at a specific move and can go to previous move
-        // 3. We're at the first move and can go to starting position
-        // 4. We're NOT already at the starting position with no moves
-        boolean canGoBack = (currentMoveIndex == -1 && moveHistory.size() > 0) || 
-                           (currentMoveIndex > 0) || 
-                           (currentMoveIndex == 0);
-        
-        // Additional check: if we're already at starting position with no moves, can't go back
-        if (currentMoveIndex == -1 && moveHistory.size() == 0) {
-            canGoBack = false;
-        }
-        
-        System.out.println("DEBUG: canGoBack() - currentMoveIndex: " + currentMoveIndex + ", moveHistory.size(): " + moveHistory.size() + ", result: " + canGoBack);
-        return canGoBack;
+        return displayedMoveCount() > 0;
     }
-    
+
     public boolean canGoForward() {
-        // Can go forward if:
-        // 1. We're at starting position and there are moves available
-        // 2. We're at a specific move and can go to next move
-        boolean canGoForward = (currentMoveIndex == -1 && moveHistory.size() > 0) || 
-                              (currentMoveIndex >= 0 && currentMoveIndex < moveHistory.size() - 1);
-        System.out.println("DEBUG: canGoForward() - currentMoveIndex: " + currentMoveIndex + ", moveHistory.size(): " + moveHistory.size() + ", result: " + canGoForward);
-        return canGoForward;
+        return isNavigating && displayedMoveCount() < moveHistory.size();
     }
-    
+
     public void goBack() {
         if (canGoBack()) {
-            System.out.println("DEBUG: goBack() called - currentMoveIndex: " + currentMoveIndex + ", moveHistory.size(): " + moveHistory.size());
-            
-            // If we're at current game state and there are moves, go to the position before the last move
-            if (currentMoveIndex == -1 && moveHistory.size() > 0) {
-                currentMoveIndex = moveHistory.size() - 2; // Go to position before the last move
-            } else if (currentMoveIndex > 0) {
-                currentMoveIndex--;
-            } else if (currentMoveIndex == 0) {
-                // At the first move, go to the starting position (before any moves)
-                currentMoveIndex = -1; // This represents the starting position
-            } else {
-                // Already at the starting position, can't go back further
-                return;
-            }
-            
-            // Restore board to the specified move
-            if (currentMoveIndex >= 0) {
-                restoreBoardToMove(currentMoveIndex);
-                // Update navigation player based on move count
-                navigationPlayer = (currentMoveIndex % 2 == 0) ? Piece.Color.WHITE : Piece.Color.BLACK;
-            } else {
-                // At starting position, it's White's turn
-                initializeBoard();
-                navigationPlayer = Piece.Color.WHITE;
-            }
-            
-            isNavigating = true;
-            
-            System.out.println("DEBUG: goBack() finished - currentMoveIndex: " + currentMoveIndex + ", isNavigating: " + isNavigating);
+            seekTo(displayedMoveCount() - 1);
         }
     }
-    
+
     public void goForward() {
         if (canGoForward()) {
-            System.out.println("DEBUG: goForward() called - currentMoveIndex: " + currentMoveIndex + ", moveHistory.size(): " + moveHistory.size());
-            
-            currentMoveIndex++;
-            
-            // Restore board to the specified move
-            if (currentMoveIndex >= 0) {
-                restoreBoardToMove(currentMoveIndex);
-                // Update navigation player based on move count
-                navigationPlayer = (currentMoveIndex % 2 == 0) ? Piece.Color.WHITE : Piece.Color.BLACK;
-            } else {
-                // At starting position, it's White's turn
-                initializeBoard();
-                navigationPlayer = Piece.Color.WHITE;
+            seekTo(displayedMoveCount() + 1);
+        }
+    }
+
+    /**
+     * Shows the position after the given number of recorded moves, entering navigation.
+     * Nearby plies are reached by unmaking or making moves one at a time; anything
+     * further restores the nearest checkpoint at or before the ply and replays from
+     * there, so no seek applies more than the checkpoint interval's worth of moves.
+     */
+    public void seekTo(int ply) {
+        if (ply < 0 || ply > moveHistory.size()) {
+            throw new IllegalArgumentException("No ply " + ply + " in a game of " + moveHistory.size());
+        }
+        int displayed = displayedMoveCount();
+        if (ply > displayed && ply - displayed <= checkpointInterval) {
+            for (int i = displayed; i < ply; i++) {
+                position.makeMove(moveHistory.get(i).getMove());
             }
-            
-            isNavigating = true;
-            
-            System.out.println("DEBUG: goForward() finished - currentMoveIndex: " + currentMoveIndex + ", isNavigating: " + isNavigating);
+        } else if (ply <= displayed && displayed - ply <= Math.min(position.getPly(), checkpointInterval)) {
+            for (int i = ply; i < displayed; i++) {
+                position.unmakeMove();
+            }
+        } else {
+            restoreCheckpoint(ply);
         }
+        currentMoveIndex = ply - 1;
+        navigationPlayer = position.getSideToMove();
+        isNavigating = true;
     }
-    
+
+    // Restore the checkpoint at or before the ply and replay the recorded moves after it
+    private void restoreCheckpoint(int ply) {
+        int index = ply / checkpointInterval;
+        position.restore(checkpoints.get(index));
+        for (int i = index * checkpointInterval; i < ply; i++) {
+            position.makeMove(moveHistory.get(i).getMove());
+        }
+    }
+
+    public int getCheckpointInterval() {
+        return checkpointInterval;
+    }
+
+    /**
+     * Changes the number of plies between checkpoints, rebuilding them for the moves played so far
+     */
+    public void setCheckpointInterval(int plies) {
+        if (plies < 1) {
+            throw new IllegalArgumentException("Checkpoint interval must be positive: " + plies);
+        }
+        checkpointInterval = plies;
+        Position replay = new Position();
+        replay.restore(checkpoints.get(0));
+        checkpoints.subList(1, checkpoints.size()).clear();
+        for (int i = 0; i < moveHistory.size(); i++) {
+            replay.makeMove(moveHistory.get(i).getMove());
+            if (i + 1 == checkpoints.size() * plies) {
+                checkpoints.add(replay.snapshot());
+            }
+        }
+    }
+
     // Debug method to check move history
     public String getMoveHistoryDebug() {
         StringBuilder sb = new StringBuilder();
@@ -721,57 +551,6 @@ public class ChessGame {
         return sb.toString();
     }
     
-    private void restoreBoardToMove(int moveIndex) {
-        // Reset to initial position
-        initializeBoard();
-        
-        // Debug: Print initial board state
-        System.out.println("Initial board state:");
-        printBoardState();
-        
-        // Replay moves up to the desired index
-        for (int i = 0; i <= moveIndex; i++) {
-            MoveRecord record = moveHistory.get(i);
-            System.out.println("Replaying move " + i + ": " + getMoveNotation(record.getFromRow(), record.getFromCol(), 
-                                          record.getToRow(), record.getToCol(),
-                                          record.getMovingPiece(), record.getCapturedPiece()));
-            executeMoveFromRecord(record);
-        }
-        
-        // Update current player based on move count
-        navigationPlayer = (moveIndex % 2 == 0) ? Piece.Color.WHITE : Piece.Color.BLACK;
-        
-        // Debug: Print the board state after restoration
-        System.out.println("Restored board to move " + moveIndex);
-        printBoardState();
-    }
-    
-    private void printBoardState() {
-        System.out.println("Current board state:");
-        for (int row = 0; row < 8; row++) {
-            StringBuilder rowStr = new StringBuilder();
-            for (int col = 0; col < 8; col++) {
-                Piece piece = board[row][col];
-                if (piece == null) {
-                    rowStr.append("- ");
-                } else {
-                    char type = ' ';
-                    switch (piece.getType()) {
-                        case PAWN: type = 'P'; break;
-                        case ROOK: type = 'R'; break;
-                        case KNIGHT: type = 'N'; break;
-                        case BISHOP: type = 'B'; break;
-                        case QUEEN: type = 'Q'; break;
-                        case KING: type = 'K'; break;
-                    }
-                    char color = piece.getColor() == Piece.Color.WHITE ? 'W' : 'B';
-                    rowStr.append(color).append(type).append(" ");
-                }
-            }
-            System.out.println(rowStr.toString());
-        }
-    }
-    
     // Get current player during navigation
     public Piece.Color getNavigationPlayer() {
         return navigationPlayer;
@@ -782,20 +561,27 @@ public class ChessGame {
         return isNavigating ? navigationPlayer : currentPlayer;
     }
     
+    // Return to the current game state by replaying the moves after the displayed one
     public void exitNavigation() {
         if (isNavigating) {
-            // Restore to current game state
-            initializeBoard();
-            currentMoveIndex = -1;
-            
-            // Replay all moves
-            for (int i = 0; i < moveHistory.size(); i++) {
-                MoveRecord record = moveHistory.get(i);
-                executeMoveFromRecord(record);
+            int size = moveHistory.size();
+            for (int i = currentMoveIndex + 1; i < size; i++) {
+                position.makeMove(moveHistory.get(i).getMove());
             }
-            
+            // After a checkpoint restore the undo stack may not reach back over the
+            // reversible moves that repetition detection needs, so replay those too
+            int window = Math.max(0, size - position.getHalfMoveClock());
+            if (size - position.getPly() > window) {
+                restoreCheckpoint(window);
+                for (int i = window; i < size; i++) {
+                    position.makeMove(moveHistory.get(i).getMove());
+                }
+            }
+            currentMoveIndex = -1;
+
             // Restore game state
-            currentPlayer = (moveHistory.size() % 2 == 0) ? Piece.Color.WHITE : Piece.Color.BLACK;
+            currentPlayer = position.getSideToMove();
+            navigationPlayer = currentPlayer;
             gameOver = false;
             winner = null;
             isNavigating = false;
@@ -806,324 +592,29 @@ public class ChessGame {
         return isNavigating;
     }
     
-    private void executeMoveFromRecord(MoveRecord record) {
-        // Handle castling
-        if (record.isCastling()) {
-            handleCastlingMove(record);
-        }
-        // Handle en passant
-        else if (record.isEnPassant()) {
-            handleEnPassantMove(record);
-        }
-        // Handle normal moves
-        else {
-            handleNormalMove(record);
-        }
-    }
-    
-    // Navigate back to previous move (for viewing, not undoing)
-    private void navigateToPreviousMove() {
-        if (moveHistory.isEmpty()) {
-            return;
-        }
-        
-        // If we're at current game state, go to the last move
-        if (currentMoveIndex == -1) {
-            currentMoveIndex = moveHistory.size() - 1;
-        } else if (currentMoveIndex > 0) {
-            currentMoveIndex--;
-        } else {
-            // Already at the first move, can't go back further
-            return;
-        }
-        
-        // Restore board to the specified move
-        restoreBoardToMove(currentMoveIndex);
-        
-        // Update navigation player based on move count
-        navigationPlayer = (currentMoveIndex % 2 == 0) ? Piece.Color.WHITE : Piece.Color.BLACK;
-        
-        // Debug: Print the board state after navigation
-        System.out.println("Board state after navigating to move " + currentMoveIndex + ":");
-        printBoardState();
-        System.out.println("Updated currentMoveIndex to: " + currentMoveIndex + " (moveHistory.size(): " + moveHistory.size() + ")");
-    }
-    
-    private void undoNormalMove(MoveRecord record) {
-        int fromRow = record.getFromRow();
-        int fromCol = record.getFromCol();
-        int toRow = record.getToRow();
-        int toCol = record.getToCol();
-        Piece movingPiece = record.getMovingPiece();
-        Piece capturedPiece = record.getCapturedPiece();
-        
-        // Move the piece back to its original position
-        board[fromRow][fromCol] = movingPiece;
-        board[toRow][toCol] = null;
-        movingPiece.setHasMoved(false);
-        
-        // Restore captured piece if there was one
-        if (capturedPiece != null) {
-            board[toRow][toCol] = capturedPiece;
-        }
-        
-        // Debug: Print the board state after undo
-        System.out.println("Board state after undoing normal move:");
-        printBoardState();
-    }
-    
-    private void undoCastlingMove(MoveRecord record) {
-        int row = record.getPlayerColor() == Piece.Color.WHITE ? 7 : 0;
-        int fromRow = record.getFromRow();
-        int fromCol = record.getFromCol();
-        int toRow = record.getToRow();
-        int toCol = record.getToCol();
-        
-        // Determine if kingside or queenside
-        boolean kingside = toCol > fromCol;
-        
-        if (kingside) {
-            // Undo kingside castling
-            // Move king back from g-file to e-file
-            Piece king = board[row][6];
-            board[row][4] = king;
-            board[row][6] = null;
-            king.setHasMoved(false);
-            
-            // Move rook back from f-file to h-file
-            Piece rook = board[row][5];
-            board[row][7] = rook;
-            board[row][5] = null;
-            rook.setHasMoved(false);
-        } else {
-            // Undo queenside castling
-            // Move king back from c-file to e-file
-            Piece king = board[row][2];
-            board[row][4] = king;
-            board[row][2] = null;
-            king.setHasMoved(false);
-            
-            // Move rook back from d-file to a-file
-            Piece rook = board[row][3];
-            board[row][0] = rook;
-            board[row][3] = null;
-            rook.setHasMoved(false);
-        }
-        
-        // Debug: Print the board state after undo
-        System.out.println("Board state after undoing castling move:");
-        printBoardState();
-    }
-    
-    private void undoEnPassantMove(MoveRecord record) {
-        int fromRow = record.getFromRow();
-        int fromCol = record.getFromCol();
-        int toRow = record.getToRow();
-        int toCol = record.getToCol();
-        Piece movingPiece = record.getMovingPiece();
-        
-        // Move the pawn back to its original position
-        board[fromRow][fromCol] = movingPiece;
-        board[toRow][toCol] = null;
-        movingPiece.setHasMoved(false);
-        
-        // Restore the captured pawn (en passant)
-        int direction = (toRow - fromRow) > 0 ? 1 : -1;
-        int capturedRow = fromRow + direction;
-        int capturedCol = toCol;
-        Piece capturedPawn = new Piece(record.getPlayerColor() == Piece.Color.WHITE ? Piece.Color.BLACK : Piece.Color.WHITE, Piece.Type.PAWN);
-        board[capturedRow][capturedCol] = capturedPawn;
-        
-        // Debug: Print the board state after undo
-        System.out.println("Board state after undoing en passant move:");
-        printBoardState();
-    }
-    
-    private void handleNormalMove(MoveRecord record) {
-        int fromRow = record.getFromRow();
-        int fromCol = record.getFromCol();
-        int toRow = record.getToRow();
-        int toCol = record.getToCol();
-        Piece movingPiece = record.getMovingPiece();
-        Piece capturedPiece = record.getCapturedPiece();
-        
-        // Clear the destination square first to prevent duplicates
-        board[toRow][toCol] = null;
-        
-        // Move the piece
-        board[toRow][toCol] = movingPiece;
-        board[fromRow][fromCol] = null;
-        movingPiece.setHasMoved(true);
-        
-        // Debug: Print the board state after the move
-        System.out.println("Board state after normal move:");
-        printBoardState();
-    }
-    
-    private void handleCastlingMove(MoveRecord record) {
-        int row = record.getPlayerColor() == Piece.Color.WHITE ? 7 : 0;
-        int fromRow = record.getFromRow();
-        int fromCol = record.getFromCol();
-        int toRow = record.getToRow();
-        int toCol = record.getToCol();
-        
-        // Determine if kingside or queenside
-        boolean kingside = toCol > fromCol;
-        
-        if (kingside) {
-            // Kingside castling
-            // Move king from e-file to g-file
-            Piece king = board[row][4];
-            board[row][6] = king;
-            board[row][4] = null;
-            king.setHasMoved(true);
-            
-            // Move rook from h-file to f-file
-            Piece rook = board[row][7];
-            board[row][5] = rook;
-            board[row][7] = null;
-            rook.setHasMoved(true);
-        } else {
-            // Queenside castling
-            // Move king from e-file to c-file
-            Piece king = board[row][4];
-            board[row][2] = king;
-            board[row][4] = null;
-            king.setHasMoved(true);
-            
-            // Move rook from a-file to d-file
-            Piece rook = board[row][0];
-            board[row][3] = rook;
-            board[row][0] = null;
-            rook.setHasMoved(true);
-        }
-        
-        // Debug: Print the board state after the move
-        System.out.println("Board state after castling move:");
-        printBoardState();
-    }
-    
-    private void handleEnPassantMove(MoveRecord record) {
-        int fromRow = record.getFromRow();
-        int fromCol = record.getFromCol();
-        int toRow = record.getToRow();
-        int toCol = record.getToCol();
-        Piece movingPiece = record.getMovingPiece();
-        
-        // Move the pawn
-        board[toRow][toCol] = movingPiece;
-        board[fromRow][fromCol] = null;
-        movingPiece.setHasMoved(true);
-        
-        // Remove the captured pawn (en passant)
-        int direction = (toRow - fromRow) > 0 ? 1 : -1;
-        int capturedRow = fromRow + direction;
-        int capturedCol = toCol;
-        board[capturedRow][capturedCol] = null;
-        
-        // Debug: Print the board state after the move
-        System.out.println("Board state after en passant move:");
-        printBoardState();
-    }
-    
-    private void executeMoveFromNotation(String move) {
-        // Simple move notation parser (e.g., "e2e4", "Nf3", "O-O")
-        if (move.equals("O-O") || move.equals("O-O-O")) {
-            // Handle castling
-            handleCastlingNotation(move);
-        } else if (move.length() == 4 || move.length() == 5) {
-            // Handle standard moves (e.g., "e2e4", "Nf3x")
-            parseStandardMove(move);
-        }
-    }
-    
-    private void handleCastlingNotation(String move) {
-        int row = currentPlayer == Piece.Color.WHITE ? 7 : 0;
-        
-        if (move.equals("O-O")) {
-            // Kingside castling
-            // Move king from e-file to g-file
-            Piece king = board[row][4];
-            board[row][6] = king;
-            board[row][4] = null;
-            king.setHasMoved(true);
-            
-            // Move rook from h-file to f-file
-            Piece rook = board[row][7];
-            board[row][5] = rook;
-            board[row][7] = null;
-            rook.setHasMoved(true);
-        } else {
-            // Queenside castling
-            // Move king from e-file to c-file
-            Piece king = board[row][4];
-            board[row][2] = king;
-            board[row][4] = null;
-            king.setHasMoved(true);
-            
-            // Move rook from a-file to d-file
-            Piece rook = board[row][0];
-            board[row][3] = rook;
-            board[row][0] = null;
-            rook.setHasMoved(true);
-        }
-    }
-    
-    private void parseStandardMove(String move) {
-        // Extract source and destination squares
-        char fromFile = move.charAt(0);
-        char fromRank = move.charAt(1);
-        char toFile = move.charAt(2);
-        char toRank = move.charAt(3);
-        
-        int fromCol = fromFile - 'a';
-        int fromRow = 8 - Character.getNumericValue(fromRank);
-        int toCol = toFile - 'a';
-        int toRow = 8 - Character.getNumericValue(toRank);
-        
-        // Debug: Print the move being parsed
-        System.out.println("Parsing move: " + move + " from (" + fromRow + "," + fromCol + ") to (" + toRow + "," + toCol + ")");
-        
-        // Move the piece
-        Piece piece = board[fromRow][fromCol];
-        if (piece != null) {
-            // Debug: Print what piece is being moved
-            System.out.println("Moving piece: " + piece.getColor() + " " + piece.getType());
-            
-            // Clear the destination square first to prevent duplicates
-            board[toRow][toCol] = null;
-            
-            // Move the piece
-            board[toRow][toCol] = piece;
-            board[fromRow][fromCol] = null;
-            piece.setHasMoved(true);
-            
-            // Debug: Print the board state after the move
-            System.out.println("Board state after move:");
-            printBoardState();
-        } else {
-            System.out.println("ERROR: No piece found at source position (" + fromRow + "," + fromCol + ")");
-        }
-    }
-
     // Get current move number
     public int getCurrentMoveNumber() {
-        return fullMoveNumber;
+        return position.getFullMoveNumber();
     }
 
     // Check if a square is under attack
     public boolean isSquareUnderAttack(int row, int col, Piece.Color attackerColor) {
-        return ChessRules.isSquareAttacked(board, row, col, attackerColor);
+        return ChessRules.isSquareAttacked(position, row, col, attackerColor);
+    }
+
+    // Get how many of the given color's pieces attack a square, e.g. for a threat overlay
+    public int getAttackerCount(int row, int col, Piece.Color attackerColor) {
+        return position.getAttackMap().attackerCount(attackerColor, Position.square(row, col));
     }
 
     // Get number of half-moves since last capture or pawn move
     public int getHalfMoveClock() {
-        return halfMoveClock;
+        return position.getHalfMoveClock();
     }
 
     // Check if a piece can move to a specific square (considering check)
     public boolean canPieceMoveTo(int fromRow, int fromCol, int toRow, int toCol) {
-        Piece piece = board[fromRow][fromCol];
+        Piece piece = position.getPiece(fromRow, fromCol);
         if (piece == null) {
             return false;
         }
@@ -1133,17 +624,17 @@ public class ChessGame {
         }
 
         // Check if move would leave king in check
-        return !ChessRules.wouldBeInCheck(board, fromRow, fromCol, toRow, toCol, piece.getColor());
+        return !ChessRules.wouldBeInCheck(position, fromRow, fromCol, toRow, toCol, piece.getColor());
     }
     
     // Check if a move is a capture
     public boolean isCaptureMove(int fromRow, int fromCol, int toRow, int toCol) {
-        return ChessRules.isCaptureMove(board, fromRow, fromCol, toRow, toCol);
+        return ChessRules.isCaptureMove(position, fromRow, fromCol, toRow, toCol);
     }
     
     // Check if a move is en passant capture
     public boolean isEnPassantCapture(int fromRow, int fromCol, int toRow, int toCol) {
-        return ChessRules.isEnPassantCapture(board, fromRow, fromCol, toRow, toCol, lastDoublePawnMoveRow, lastDoublePawnMoveCol);
+        return ChessRules.isEnPassantCapture(position, fromRow, fromCol, toRow, toCol, lastDoublePawnMoveRow(), lastDoublePawnMoveCol());
     }
     
     // Check if the game ended in checkmate
@@ -1153,6 +644,6 @@ public class ChessGame {
     
     // Check if current player is in check
     public boolean isInCheck() {
-        return ChessRules.isInCheck(board, currentPlayer);
+        return ChessRules.isInCheck(position, currentPlayer);
     }
 }
\ No newline at end of file
@@ -405,27 +405,23 @@ public class ChessRules {
     }
     
     /**
-     * Checks if a position is within the board bounds
-     */
-    private static boolean isValidPosition(int row, int col) {
-        return row >= 0 && row < 8 && col >= 0 && col < 8;
-    }
-    
-    /**
-     * Creates a deep copy of the board
+     * Creates a copy of the board; pieces are immutable, so they are shared
      */
     private static Piece[][] copyBoard(Piece[][] original) {
-        Piece[][] copy = new Piece[8][8];
+        Piece[][] copy = new Piece[8][];
         for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col++) {
-                if (original[row][col] != null) {
-                    copy[row][col] = new Piece(original[row][col].getColor(), original[row][col].getType());
-                }
-            }
+            copy[row] = original[row].clone();
         }
         return copy;
     }
     
+    /**
+     * Checks if a position is within the board bounds
+     */
+    private static boolean isValidPosition(int row, int col) {
+        return row >= 0 && row < 8 && col >= 0 && col < 8;
+    }
+    
     /**
      * Checks if castling is possible
      */
@@ -435,16 +431,17 @@ public class ChessRules {
             return false;
         }
 
-        Piece king = board[kingPos[0]][kingPos[1]];
-        if (king == null || king.hasMoved()) {
+        // A bare board carries no castling rights, so they are assumed for a king
+        // and rook still standing on their starting squares
+        int row = color == Piece.Color.WHITE ? 7 : 0;
+        if (kingPos[0] != row || kingPos[1] != 4) {
             return false;
         }
 
-        int row = color == Piece.Color.WHITE ? 7 : 0;
         int rookCol = kingside ? 7 : 0;
         Piece rook = board[row][rookCol];
 
-        if (rook == null || rook.getType() != Piece.Type.ROOK || rook.hasMoved()) {
+        if (rook == null || rook.getType() != Piece.Type.ROOK || rook.getColor() != color) {
             return false;
         }
 
@@ -459,7 +456,7 @@ public class ChessRules {
 
         // Check if king passes through or ends in check
         Piece.Color opponentColor = color == Piece.Color.WHITE ? Piece.Color.BLACK : Piece.Color.WHITE;
-        for (int col = 4; col <= (kingside ? 6 : 2); col++) {
+        for (int col = kingside ? 4 : 2; col <= (kingside ? 6 : 4); col++) {
             if (isSquareAttacked(board, row, col, opponentColor)) {
                 return false;
             }
@@ -655,4 +652,319 @@ public class ChessRules {
         }
         return canEnPassant(board, fromRow, fromCol, toRow, toCol, lastDoublePawnMoveRow, lastDoublePawnMoveCol);
     }
+    
+    // ------------------------------------------------------------------
+    // Bitboard implementation
+    //
+    // The methods below answer the same questions as the Piece[][] versions
+    // above, but work on a Position, so attack and mobility tests are table
+    // lookups from Attacks and a few masks instead of nested loops over the board.
+    // ------------------------------------------------------------------
+    
+    /**
+     * Squares a piece can move to by its movement rules alone (own pieces and check not considered)
+     */
+    private static long pieceTargets(Position position, Piece piece, int square) {
+        if (piece.getType() != Piece.Type.PAWN) {
+            return Attacks.of(piece, square, position.occupied());
+        }
+        
+        boolean white = piece.getColor() == Piece.Color.WHITE;
+        long empty = ~position.occupied();
+        long b = Position.bit(square);
+        long singlePush = (white ? b >>> 8 : b << 8) & empty;
+        long doublePush = 0L;
+        if (singlePush != 0 && Position.row(square) == (white ? 6 : 1)) {
+            doublePush = (white ? singlePush >>> 8 : singlePush << 8) & empty;
+        }
+        Piece.Color opponent = white ? Piece.Color.BLACK : Piece.Color.WHITE;
+        long captures = Attacks.pawn(piece.getColor(), square) & position.pieces(opponent);
+        return singlePush | doublePush | captures;
+    }
+    
+    /**
+     * Gets every piece of either color attacking a square, as a bitboard,
+     * by looking up the square's own attack sets and intersecting them
+     * with the matching piece bitboards
+     */
+    public static long attackersTo(Position position, int square, long occupied) {
+        long queens = position.pieces(Piece.Color.WHITE, Piece.Type.QUEEN) | position.pieces(Piece.Color.BLACK, Piece.Type.QUEEN);
+        long rooks = position.pieces(Piece.Color.WHITE, Piece.Type.ROOK) | position.pieces(Piece.Color.BLACK, Piece.Type.ROOK);
+        long bishops = position.pieces(Piece.Color.WHITE, Piece.Type.BISHOP) | position.pieces(Piece.Color.BLACK, Piece.Type.BISHOP);
+        long knights = position.pieces(Piece.Color.WHITE, Piece.Type.KNIGHT) | position.pieces(Piece.Color.BLACK, Piece.Type.KNIGHT);
+        long kings = position.pieces(Piece.Color.WHITE, Piece.Type.KING) | position.pieces(Piece.Color.BLACK, Piece.Type.KING);
+        return (Attacks.pawn(Piece.Color.BLACK, square) & position.pieces(Piece.Color.WHITE, Piece.Type.PAWN))
+             | (Attacks.pawn(Piece.Color.WHITE, square) & position.pieces(Piece.Color.BLACK, Piece.Type.PAWN))
+             | (Attacks.knight(square) & knights)
+             | (Attacks.king(square) & kings)
+             | (Attacks.bishop(square, occupied) & (bishops | queens))
+             | (Attacks.rook(square, occupied) & (rooks | queens));
+    }
+    
+    /**
+     * Checks if a square is attacked by pieces of the given color, using the given
+     * occupancy and ignoring attackers standing on the removed squares
+     */
+    private static boolean isAttackedBy(Position position, int square, Piece.Color byColor, long occupied, long removed) {
+        long keep = ~removed;
+        Piece.Color defender = byColor == Piece.Color.WHITE ? Piece.Color.BLACK : Piece.Color.WHITE;
+        if ((Attacks.pawn(defender, square) & position.pieces(byColor, Piece.Type.PAWN) & keep) != 0) {
+            return true;
+        }
+        if ((Attacks.knight(square) & position.pieces(byColor, Piece.Type.KNIGHT) & keep) != 0) {
+            return true;
+        }
+        if ((Attacks.king(square) & position.pieces(byColor, Piece.Type.KING) & keep) != 0) {
+            return true;
+        }
+        long queens = position.pieces(byColor, Piece.Type.QUEEN);
+        long diagonal = (position.pieces(byColor, Piece.Type.BISHOP) | queens) & keep;
+        if ((Attacks.bishop(square, occupied) & diagonal) != 0) {
+            return true;
+        }
+        long straight = (position.pieces(byColor, Piece.Type.ROOK) | queens) & keep;
+        return (Attacks.rook(square, occupied) & straight) != 0;
+    }
+    
+    /**
+     * Checks if the king of the given color would be attacked after moving a piece
+     * between two squares, without modifying the position
+     */
+    private static boolean leavesKingAttacked(Position position, int from, int to, Piece.Color color) {
+        Piece moving = position.getPiece(from);
+        int kingSquare = moving != null && moving.getType() == Piece.Type.KING && moving.getColor() == color
+                ? to : position.kingSquare(color);
+        if (kingSquare == Position.NO_SQUARE) {
+            return false;
+        }
+        long occupied = (position.occupied() & ~Position.bit(from)) | Position.bit(to);
+        Piece.Color opponent = color == Piece.Color.WHITE ? Piece.Color.BLACK : Piece.Color.WHITE;
+        return isAttackedBy(position, kingSquare, opponent, occupied, Position.bit(to));
+    }
+    
+    /**
+     * Validates if a move is legal according to chess rules
+     */
+    public static boolean isValidMove(Position position, int startRow, int startCol, int endRow, int endCol, boolean isWhiteTurn) {
+        if (!isValidPosition(endRow, endCol)) {
+            return false;
+        }
+        if (startRow == endRow && startCol == endCol) {
+            return false;
+        }
+        
+        Piece startPiece = position.getPiece(startRow, startCol);
+        if (startPiece == null) {
+            return false;
+        }
+        if (startPiece.getColor() == Piece.Color.WHITE != isWhiteTurn) {
+            return false;
+        }
+        
+        Piece endPiece = position.getPiece(endRow, endCol);
+        if (endPiece != null && endPiece.getColor() == startPiece.getColor()) {
+            return false;
+        }
+        
+        return MoveGenerator.isLegal(position, startPiece.getColor(),
+                Position.square(startRow, startCol), Position.square(endRow, endCol));
+    }
+    
+    /**
+     * Validates piece-specific movement rules
+     */
+    public static boolean isValidPieceMove(Position position, Piece piece, int startRow, int startCol, int endRow, int endCol) {
+        long targets = pieceTargets(position, piece, Position.square(startRow, startCol));
+        return (targets & Position.bit(Position.square(endRow, endCol))) != 0;
+    }
+    
+    /**
+     * Checks if a move would put the player's own king in check
+     */
+    public static boolean wouldPutKingInCheck(Position position, int startRow, int startCol, int endRow, int endCol, boolean isWhiteTurn) {
+        return leavesKingAttacked(position, Position.square(startRow, startCol), Position.square(endRow, endCol),
+                isWhiteTurn ? Piece.Color.WHITE : Piece.Color.BLACK);
+    }
+    
+    /**
+     * Checks if the player's king is in check
+     */
+    public static boolean isKingInCheck(Position position, boolean isWhiteTurn) {
+        return isInCheck(position, isWhiteTurn ? Piece.Color.WHITE : Piece.Color.BLACK);
+    }
+    
+    /**
+     * Checks if the game is in checkmate
+     */
+    public static boolean isCheckmate(Position position, boolean isWhiteTurn) {
+        return isInCheckmate(position, isWhiteTurn ? Piece.Color.WHITE : Piece.Color.BLACK);
+    }
+    
+    /**
+     * Checks if the game is in stalemate
+     */
+    public static boolean isStalemate(Position position, boolean isWhiteTurn) {
+        return isInStalemate(position, isWhiteTurn ? Piece.Color.WHITE : Piece.Color.BLACK);
+    }
+    
+    /**
+     * Gets all valid moves for a piece at the given position
+     */
+    public static MoveList getValidMoves(Position position, int row, int col, boolean isWhiteTurn) {
+        return getValidMoves(position, row, col, isWhiteTurn, new MoveList());
+    }
+
+    /**
+     * Fills a caller-owned move list with the legal moves of the piece on a square, so
+     * repeated queries reuse one list instead of allocating
+     */
+    public static MoveList getValidMoves(Position position, int row, int col, boolean isWhiteTurn, MoveList moves) {
+        moves.clear();
+        if (!isValidPosition(row, col)) {
+            return moves;
+        }
+
+        Piece piece = position.getPiece(row, col);
+        if (piece == null || piece.getColor() != (isWhiteTurn ? Piece.Color.WHITE : Piece.Color.BLACK)) {
+            return moves;
+        }
+
+        return MoveGenerator.generateLegalMoves(position, piece.getColor(), Position.square(row, col), moves);
+    }
+
+    /**
+     * Checks if castling is possible
+     */
+    public static boolean canCastle(Position position, Piece.Color color, boolean kingside) {
+        return MoveGenerator.canCastle(position, color, kingside);
+    }
+    
+    /**
+     * Checks if en passant is possible
+     */
+    public static boolean canEnPassant(Position position, int fromRow, int fromCol, int toRow, int toCol, int lastDoublePawnMoveRow, int lastDoublePawnMoveCol) {
+        if (Math.abs(fromCol - toCol) != 1 || Math.abs(fromRow - toRow) != 1) {
+            return false;
+        }
+        
+        int direction = (toRow - fromRow) > 0 ? 1 : -1;
+        int adjacentRow = fromRow + direction;
+        int adjacentCol = toCol;
+        if (!isValidPosition(adjacentRow, adjacentCol)) {
+            return false;
+        }
+        
+        Piece adjacentPiece = position.getPiece(adjacentRow, adjacentCol);
+        if (adjacentPiece == null || adjacentPiece.getType() != Piece.Type.PAWN) {
+            return false;
+        }
+        
+        int expectedStartRow = adjacentRow - (2 * direction);
+        return expectedStartRow >= 0 && expectedStartRow < 8
+                && lastDoublePawnMoveRow == expectedStartRow && lastDoublePawnMoveCol == adjacentCol;
+    }
+    
+    /**
+     * Checks if a square is attacked by opponent pieces
+     */
+    public static boolean isSquareAttacked(Position position, int row, int col, Piece.Color byColor) {
+        int square = Position.square(row, col);
+        // A square holding one of the attacker's own pieces is never counted as attacked
+        if ((position.pieces(byColor) & Position.bit(square)) != 0) {
+            return false;
+        }
+        AttackMap attackMap = position.getAttackMap();
+        if (attackMap != null) {
+            return attackMap.isAttacked(byColor, square);
+        }
+        return isAttackedBy(position, square, byColor, position.occupied(), 0L);
+    }
+    
+    /**
+     * Checks if a move would leave the king in check
+     */
+    public static boolean wouldBeInCheck(Position position, int fromRow, int fromCol, int toRow, int toCol, Piece.Color color) {
+        return leavesKingAttacked(position, Position.square(fromRow, fromCol), Position.square(toRow, toCol), color);
+    }
+    
+    /**
+     * Checks if current player is in check
+     */
+    public static boolean isInCheck(Position position, Piece.Color currentPlayer) {
+        int kingSquare = position.kingSquare(currentPlayer);
+        if (kingSquare == Position.NO_SQUARE) {
+            return false;
+        }
+        Piece.Color opponentColor = currentPlayer == Piece.Color.WHITE ? Piece.Color.BLACK : Piece.Color.WHITE;
+        AttackMap attackMap = position.getAttackMap();
+        if (attackMap != null) {
+            return attackMap.isAttacked(opponentColor, kingSquare);
+        }
+        return isAttackedBy(position, kingSquare, opponentColor, position.occupied(), 0L);
+    }
+    
+    /**
+     * Checks if current player is in checkmate
+     */
+    public static boolean isInCheckmate(Position position, Piece.Color currentPlayer) {
+        return isInCheck(position, currentPlayer) && !MoveGenerator.hasLegalMove(position, currentPlayer);
+    }
+    
+    /**
+     * Checks for stalemate
+     */
+    public static boolean isInStalemate(Position position, Piece.Color currentPlayer) {
+        return !isInCheck(position, currentPlayer) && !MoveGenerator.hasLegalMove(position, currentPlayer);
+    }
+    
+    /**
+     * Decides whether the game is over for the side to move, and why, in one pass.
+     * Move generation stops at the first legal move found; the draw rules are only
+     * looked at once the side is known to have one, since checkmate takes precedence.
+     */
+    public static GameOutcome evaluateOutcome(Position position) {
+        Piece.Color side = position.getSideToMove();
+        if (!MoveGenerator.hasLegalMove(position, side)) {
+            return isInCheck(position, side) ? GameOutcome.CHECKMATE : GameOutcome.STALEMATE;
+        }
+        if (position.getHalfMoveClock() >= 100) {
+            return GameOutcome.FIFTY_MOVE_RULE;
+        }
+        if (position.repetitionCount() >= 2) {
+            return GameOutcome.THREEFOLD_REPETITION;
+        }
+        if (isInsufficientMaterial(position)) {
+            return GameOutcome.INSUFFICIENT_MATERIAL;
+        }
+        return GameOutcome.ONGOING;
+    }
+
+    /**
+     * Checks if neither side has enough material left to checkmate: bare kings, a single
+     * minor piece, or only bishops that all stand on squares of one color
+     */
+    public static boolean isInsufficientMaterial(Position position) {
+        long bishops = position.pieces(Piece.Color.WHITE, Piece.Type.BISHOP) | position.pieces(Piece.Color.BLACK, Piece.Type.BISHOP);
+        return Material.isInsufficient(position.getMaterialKey(), bishops);
+    }
+
+    /**
+     * Checks if a move is a capture
+     */
+    public static boolean isCaptureMove(Position position, int fromRow, int fromCol, int toRow, int toCol) {
+        Piece piece = position.getPiece(fromRow, fromCol);
+        Piece target = position.getPiece(toRow, toCol);
+        return piece != null && target != null && target.getColor() != piece.getColor();
+    }
+    
+    /**
+     * Checks if a move is en passant capture
+     */
+    public static boolean isEnPassantCapture(Position position, int fromRow, int fromCol, int toRow, int toCol, int lastDoublePawnMoveRow, int lastDoublePawnMoveCol) {
+        Piece piece = position.getPiece(fromRow, fromCol);
+        if (piece == null || piece.getType() != Piece.Type.PAWN) {
+            return false;
+        }
+        return canEnPassant(position, fromRow, fromCol, toRow, toCol, lastDoublePawnMoveRow, lastDoublePawnMoveCol);
+    }
 }
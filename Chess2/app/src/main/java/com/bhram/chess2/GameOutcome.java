@@ -0,0 +1,21 @@
+package com.bhram.chess2;
+
+/**
+ * How a game stands for the side to move: still going, or ended and why
+ */
+public enum GameOutcome {
+    ONGOING,
+    CHECKMATE,
+    STALEMATE,
+    FIFTY_MOVE_RULE,
+    THREEFOLD_REPETITION,
+    INSUFFICIENT_MATERIAL;
+
+    public boolean isOver() {
+        return this != ONGOING;
+    }
+
+    public boolean isDraw() {
+        return this != ONGOING && this != CHECKMATE;
+    }
+}
@@ -0,0 +1,134 @@
+package com.bhram.chess2;
+
+/**
+ * Material reads a position's material key: the number of pieces of each
+ * color and type packed four bits apiece, in Position.pieceIndex order.
+ * Position adds or subtracts one unit as pieces are placed and removed, so
+ * the key always describes the current material and everything here is a
+ * constant-time calculation on it. Positions with the same material share
+ * the same key, which also makes it usable as a table index. Four bits
+ * allow up to fifteen pieces of one kind, far more than promotions can make.
+ */
+public final class Material {
+
+    private static final int BITS = 4;
+    private static final long MASK = (1L << BITS) - 1;
+
+    // a8 is a light square, and with row * 8 + col numbering so is every square with an even row + col
+    private static final long LIGHT_SQUARES = 0xAA55AA55AA55AA55L;
+
+    // Fields of the pawns, rooks and queens of both colors, any one of which can still mate
+    private static final long MATING_MATERIAL;
+
+    static {
+        long mask = 0L;
+        for (Piece.Color color : Piece.Color.values()) {
+            mask |= unit(Position.pieceIndex(color, Piece.Type.PAWN)) * MASK;
+            mask |= unit(Position.pieceIndex(color, Piece.Type.ROOK)) * MASK;
+            mask |= unit(Position.pieceIndex(color, Piece.Type.QUEEN)) * MASK;
+        }
+        MATING_MATERIAL = mask;
+    }
+
+    // Game phase weight of each piece type, in Piece.Type order
+    private static final int[] PHASE_WEIGHTS = {0, 2, 1, 1, 4, 0};
+
+    /**
+     * Phase of a position with all minor and major pieces on the board
+     */
+    public static final int MAX_PHASE = 24;
+
+    /**
+     * Largest number of pieces, kings included, that endgame tablebases commonly cover
+     */
+    public static final int TABLEBASE_PIECES = 7;
+
+    private static final char[] SIGNATURE_ORDER = {'K', 'Q', 'R', 'B', 'N', 'P'};
+    private static final Piece.Type[] SIGNATURE_TYPES = {
+        Piece.Type.KING, Piece.Type.QUEEN, Piece.Type.ROOK,
+        Piece.Type.BISHOP, Piece.Type.KNIGHT, Piece.Type.PAWN
+    };
+
+    private Material() {
+    }
+
+    /**
+     * Amount the key changes by when a piece with the given index is added or removed
+     */
+    static long unit(int pieceIndex) {
+        return 1L << (pieceIndex * BITS);
+    }
+
+    public static int count(long materialKey, Piece.Color color, Piece.Type type) {
+        return (int) ((materialKey >>> (Position.pieceIndex(color, type) * BITS)) & MASK);
+    }
+
+    /**
+     * Total number of pieces of both colors, kings included
+     */
+    public static int pieceCount(long materialKey) {
+        int total = 0;
+        for (long key = materialKey; key != 0; key >>>= BITS) {
+            total += (int) (key & MASK);
+        }
+        return total;
+    }
+
+    /**
+     * Game phase from MAX_PHASE with every minor and major piece on the board down to 0
+     * with only kings and pawns, for blending middlegame and endgame play
+     */
+    public static int phase(long materialKey) {
+        int phase = 0;
+        for (Piece.Type type : Piece.Type.values()) {
+            int weight = PHASE_WEIGHTS[type.ordinal()];
+            if (weight != 0) {
+                phase += weight * (count(materialKey, Piece.Color.WHITE, type) + count(materialKey, Piece.Color.BLACK, type));
+            }
+        }
+        return Math.min(phase, MAX_PHASE);
+    }
+
+    /**
+     * Checks if the material is within reach of an endgame tablebase
+     */
+    public static boolean isTablebaseCandidate(long materialKey) {
+        return pieceCount(materialKey) <= TABLEBASE_PIECES;
+    }
+
+    /**
+     * Checks if neither side has enough material left to checkmate: bare kings, a single
+     * minor piece, or only bishops. Whether bishops are all on one square color cannot be
+     * told from the counts, so the bishops' squares are passed in.
+     */
+    public static boolean isInsufficient(long materialKey, long bishops) {
+        if ((materialKey & MATING_MATERIAL) != 0) {
+            return false;
+        }
+        int knights = count(materialKey, Piece.Color.WHITE, Piece.Type.KNIGHT) + count(materialKey, Piece.Color.BLACK, Piece.Type.KNIGHT);
+        int bishopCount = count(materialKey, Piece.Color.WHITE, Piece.Type.BISHOP) + count(materialKey, Piece.Color.BLACK, Piece.Type.BISHOP);
+        if (knights + bishopCount <= 1) {
+            return true;
+        }
+        return knights == 0 && ((bishops & LIGHT_SQUARES) == 0 || (bishops & ~LIGHT_SQUARES) == 0);
+    }
+
+    /**
+     * Describes the material as White's pieces, "v", then Black's, strongest first, e.g. "KBNvK"
+     */
+    public static String signature(long materialKey) {
+        StringBuilder sb = new StringBuilder(16);
+        appendSide(sb, materialKey, Piece.Color.WHITE);
+        sb.append('v');
+        appendSide(sb, materialKey, Piece.Color.BLACK);
+        return sb.toString();
+    }
+
+    private static void appendSide(StringBuilder sb, long materialKey, Piece.Color color) {
+        for (int i = 0; i < SIGNATURE_TYPES.length; i++) {
+            for (int n = count(materialKey, color, SIGNATURE_TYPES[i]); n > 0; n--) {
+                sb.append(SIGNATURE_ORDER[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.bhram.chess2;
+
+/**
+ * Move packs a chess move into the low 16 bits of an int:
+ * bits 0-5 hold the from square, bits 6-11 the to square and
+ * bits 12-15 a flag describing the kind of move. Squares use
+ * Position numbering (row * 8 + col).
+ */
+public final class Move {
+
+    public static final int NONE = 0;
+
+    // Move flags
+    public static final int QUIET = 0;
+    public static final int DOUBLE_PAWN_PUSH = 1;
+    public static final int KING_CASTLE = 2;
+    public static final int QUEEN_CASTLE = 3;
+    public static final int CAPTURE = 4;
+    public static final int EN_PASSANT = 5;
+    public static final int PROMOTION = 8;
+    public static final int PROMOTION_CAPTURE = 12;
+
+    // Promotion piece, stored in the low two bits of a promotion flag
+    private static final Piece.Type[] PROMOTION_TYPES = {
+        Piece.Type.KNIGHT, Piece.Type.BISHOP, Piece.Type.ROOK, Piece.Type.QUEEN
+    };
+
+    private Move() {
+    }
+
+    public static int encode(int from, int to, int flags) {
+        return from | (to << 6) | (flags << 12);
+    }
+
+    /**
+     * Encodes a promotion to the given piece type (knight, bishop, rook or queen)
+     */
+    public static int promotion(int from, int to, Piece.Type type, boolean capture) {
+        int index;
+        switch (type) {
+            case KNIGHT: index = 0; break;
+            case BISHOP: index = 1; break;
+            case ROOK: index = 2; break;
+            default: index = 3; break;
+        }
+        return encode(from, to, (capture ? PROMOTION_CAPTURE : PROMOTION) | index);
+    }
+
+    public static int from(int move) {
+        return move & 63;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & 63;
+    }
+
+    public static int flags(int move) {
+        return (move >>> 12) & 15;
+    }
+
+    public static boolean isCapture(int move) {
+        return (flags(move) & CAPTURE) != 0;
+    }
+
+    public static boolean isPromotion(int move) {
+        return (flags(move) & PROMOTION) != 0;
+    }
+
+    public static boolean isEnPassant(int move) {
+        return flags(move) == EN_PASSANT;
+    }
+
+    public static boolean isCastling(int move) {
+        int flags = flags(move);
+        return flags == KING_CASTLE || flags == QUEEN_CASTLE;
+    }
+
+    public static boolean isDoublePawnPush(int move) {
+        return flags(move) == DOUBLE_PAWN_PUSH;
+    }
+
+    /**
+     * The piece type a pawn promotes to, or null if the move is not a promotion
+     */
+    public static Piece.Type promotionType(int move) {
+        return isPromotion(move) ? PROMOTION_TYPES[flags(move) & 3] : null;
+    }
+
+    /**
+     * Formats a move in coordinate notation, e.g. "e2e4" or "e7e8q"
+     */
+    public static String toString(int move) {
+        StringBuilder sb = new StringBuilder(5);
+        appendSquare(sb, from(move));
+        appendSquare(sb, to(move));
+        Piece.Type promotion = promotionType(move);
+        if (promotion != null) {
+            switch (promotion) {
+                case KNIGHT: sb.append('n'); break;
+                case BISHOP: sb.append('b'); break;
+                case ROOK: sb.append('r'); break;
+                default: sb.append('q'); break;
+            }
+        }
+        return sb.toString();
+    }
+
+    private static void appendSquare(StringBuilder sb, int square) {
+        sb.append((char) ('a' + Position.col(square)));
+        sb.append((char) ('0' + (8 - Position.row(square))));
+    }
+}
@@ -0,0 +1,312 @@
+package com.bhram.chess2;
+
+/**
+ * MoveGenerator produces only legal moves for a Position.
+ * The checking pieces and pinned pieces are worked out once per call,
+ * then every candidate move is filtered with two masks: a check mask
+ * (the squares that capture or block the checker) and, for pinned
+ * pieces, the line between the king and the pinner. No board is copied
+ * and no move is tried out, so generating moves allocates nothing;
+ * moves are written as packed ints (see Move) into a caller-owned array.
+ */
+public final class MoveGenerator {
+
+    /** Enough room for the legal moves of any reachable position (the known maximum is 218) */
+    public static final int MAX_MOVES = 256;
+
+    private static final Piece.Type[] PROMOTION_ORDER = {
+        Piece.Type.QUEEN, Piece.Type.ROOK, Piece.Type.BISHOP, Piece.Type.KNIGHT
+    };
+
+    private MoveGenerator() {
+    }
+
+    /**
+     * Writes every legal move for the given side into moves and returns how many there are
+     */
+    public static int generateLegalMoves(Position position, Piece.Color side, int[] moves) {
+        return generate(position, side, -1L, -1L, moves, false, false);
+    }
+
+    /**
+     * Writes the legal moves of the piece on one square into moves and returns how many there are
+     */
+    public static int generateLegalMoves(Position position, Piece.Color side, int from, int[] moves) {
+        return generate(position, side, Position.bit(from), -1L, moves, false, false);
+    }
+
+    /**
+     * Writes only the legal captures (en passant included) and promotions for the given
+     * side into moves and returns how many there are, for searches that look at tactical
+     * moves alone
+     */
+    public static int generateLegalCaptures(Position position, Piece.Color side, int[] moves) {
+        return generate(position, side, -1L, -1L, moves, false, true);
+    }
+
+    /**
+     * Fills a move list with every legal move for the given side
+     */
+    public static MoveList generateLegalMoves(Position position, Piece.Color side, MoveList moves) {
+        moves.setSize(generate(position, side, -1L, -1L, moves.buffer(MAX_MOVES), false, false));
+        return moves;
+    }
+
+    /**
+     * Fills a move list with the legal moves of the piece on one square
+     */
+    public static MoveList generateLegalMoves(Position position, Piece.Color side, int from, MoveList moves) {
+        moves.setSize(generate(position, side, Position.bit(from), -1L, moves.buffer(MAX_MOVES), false, false));
+        return moves;
+    }
+
+    /**
+     * Checks if the given side has at least one legal move, stopping at the first one found
+     */
+    public static boolean hasLegalMove(Position position, Piece.Color side) {
+        return generate(position, side, -1L, -1L, null, true, false) > 0;
+    }
+
+    /**
+     * Checks if a from/to move is legal for the given side (any promotion piece counts)
+     */
+    public static boolean isLegal(Position position, Piece.Color side, int from, int to) {
+        return generate(position, side, Position.bit(from), Position.bit(to), null, true, false) > 0;
+    }
+
+    /**
+     * Checks if the given side may castle on the given wing right now: it has the right,
+     * the squares between king and rook are empty and the king is not in, passing
+     * through or landing in check
+     */
+    public static boolean canCastle(Position position, Piece.Color side, boolean kingside) {
+        boolean white = side == Piece.Color.WHITE;
+        int home = white ? Position.square(7, 4) : Position.square(0, 4);
+        int right = white
+                ? (kingside ? Position.WHITE_KINGSIDE : Position.WHITE_QUEENSIDE)
+                : (kingside ? Position.BLACK_KINGSIDE : Position.BLACK_QUEENSIDE);
+        if (position.kingSquare(side) != home || !position.canCastle(right)) {
+            return false;
+        }
+        // A king on its home square reaches two squares along the rank only by castling
+        return isLegal(position, side, home, kingside ? home + 2 : home - 2);
+    }
+
+    /**
+     * Gets the enemy pieces giving check to the given side's king, as a bitboard
+     */
+    public static long checkers(Position position, Piece.Color side) {
+        int king = position.kingSquare(side);
+        if (king == Position.NO_SQUARE) {
+            return 0L;
+        }
+        return ChessRules.attackersTo(position, king, position.occupied()) & position.pieces(opponent(side));
+    }
+
+    /**
+     * Gets the given side's pieces that are pinned to their own king, as a bitboard
+     */
+    public static long pinned(Position position, Piece.Color side) {
+        int king = position.kingSquare(side);
+        if (king == Position.NO_SQUARE) {
+            return 0L;
+        }
+        Piece.Color them = opponent(side);
+        long theirs = position.pieces(them);
+        long queens = position.pieces(them, Piece.Type.QUEEN);
+        // Enemy sliders that would see the king if none of our pieces were in the way
+        long snipers = (Attacks.rook(king, theirs) & (position.pieces(them, Piece.Type.ROOK) | queens))
+                     | (Attacks.bishop(king, theirs) & (position.pieces(them, Piece.Type.BISHOP) | queens));
+        long pinned = 0L;
+        while (snipers != 0) {
+            int sniper = Long.numberOfTrailingZeros(snipers);
+            snipers &= snipers - 1;
+            long blockers = Attacks.between(king, sniper) & position.occupied();
+            if (Long.bitCount(blockers) == 1) {
+                pinned |= blockers & position.pieces(side);
+            }
+        }
+        return pinned;
+    }
+
+    private static Piece.Color opponent(Piece.Color color) {
+        return color == Piece.Color.WHITE ? Piece.Color.BLACK : Piece.Color.WHITE;
+    }
+
+    private static int add(int[] moves, int count, int move) {
+        if (moves != null) {
+            moves[count] = move;
+        }
+        return count + 1;
+    }
+
+    private static int addAll(int[] moves, int count, int from, long targets, long enemies) {
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            boolean capture = (enemies & Position.bit(to)) != 0;
+            count = add(moves, count, Move.encode(from, to, capture ? Move.CAPTURE : Move.QUIET));
+        }
+        return count;
+    }
+
+    private static int addPawnMoves(int[] moves, int count, int from, long targets, long enemies, int promotionRow) {
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            boolean capture = (enemies & Position.bit(to)) != 0;
+            if (Position.row(to) == promotionRow) {
+                for (Piece.Type type : PROMOTION_ORDER) {
+                    count = add(moves, count, Move.promotion(from, to, type, capture));
+                }
+            } else if (Math.abs(to - from) == 16) {
+                count = add(moves, count, Move.encode(from, to, Move.DOUBLE_PAWN_PUSH));
+            } else {
+                count = add(moves, count, Move.encode(from, to, capture ? Move.CAPTURE : Move.QUIET));
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Checks if a square is attacked by the given color, with the given occupancy
+     * and ignoring any attacker standing on a removed square
+     */
+    private static boolean isAttacked(Position position, int square, Piece.Color byColor, long occupied, long removed) {
+        long keep = ~removed;
+        long queens = position.pieces(byColor, Piece.Type.QUEEN);
+        return (Attacks.pawn(opponent(byColor), square) & position.pieces(byColor, Piece.Type.PAWN) & keep) != 0
+            || (Attacks.knight(square) & position.pieces(byColor, Piece.Type.KNIGHT) & keep) != 0
+            || (Attacks.king(square) & position.pieces(byColor, Piece.Type.KING) & keep) != 0
+            || (Attacks.bishop(square, occupied) & (position.pieces(byColor, Piece.Type.BISHOP) | queens) & keep) != 0
+            || (Attacks.rook(square, occupied) & (position.pieces(byColor, Piece.Type.ROOK) | queens) & keep) != 0;
+    }
+
+    private static int generate(Position position, Piece.Color side, long fromMask, long toMask, int[] moves,
+                                boolean firstOnly, boolean capturesOnly) {
+        int king = position.kingSquare(side);
+        if (king == Position.NO_SQUARE) {
+            return 0;
+        }
+
+        Piece.Color them = opponent(side);
+        long ours = position.pieces(side);
+        long enemies = position.pieces(them);
+        long occupied = position.occupied();
+        // Squares a move may end on besides the ones pawns promote on
+        long targetMask = (capturesOnly ? enemies : -1L) & toMask;
+        int count = 0;
+
+        // King moves: the king itself is lifted off the board so it cannot hide behind its own square
+        if ((fromMask & Position.bit(king)) != 0) {
+            long targets = Attacks.king(king) & ~ours & targetMask;
+            long withoutKing = occupied & ~Position.bit(king);
+            while (targets != 0) {
+                int to = Long.numberOfTrailingZeros(targets);
+                targets &= targets - 1;
+                if (!isAttacked(position, to, them, withoutKing, Position.bit(to))) {
+                    boolean capture = (enemies & Position.bit(to)) != 0;
+                    count = add(moves, count, Move.encode(king, to, capture ? Move.CAPTURE : Move.QUIET));
+                    if (firstOnly) {
+                        return count;
+                    }
+                }
+            }
+        }
+
+        long checkers = ChessRules.attackersTo(position, king, occupied) & enemies;
+        if (Long.bitCount(checkers) > 1) {
+            // Double check: only the king can move
+            return count;
+        }
+
+        long checkMask = -1L;
+        if (checkers != 0) {
+            int checker = Long.numberOfTrailingZeros(checkers);
+            checkMask = checkers | Attacks.between(king, checker);
+        }
+        long pinned = pinned(position, side);
+        long movable = ~ours & checkMask & targetMask;
+
+        // Knights, bishops, rooks and queens
+        long pieces = ours & ~position.pieces(side, Piece.Type.PAWN) & ~position.pieces(side, Piece.Type.KING) & fromMask;
+        while (pieces != 0) {
+            int from = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            long targets = Attacks.of(position.getPiece(from), from, occupied) & movable;
+            if ((pinned & Position.bit(from)) != 0) {
+                targets &= Attacks.line(king, from);
+            }
+            count = addAll(moves, count, from, targets, enemies);
+            if (firstOnly && count > 0) {
+                return count;
+            }
+        }
+
+        // Pawns
+        boolean white = side == Piece.Color.WHITE;
+        int startRow = white ? 6 : 1;
+        int promotionRow = white ? 0 : 7;
+        long pawnTargetMask = (capturesOnly ? enemies | (0xFFL << (promotionRow * 8)) : -1L) & toMask;
+        int forward = white ? -8 : 8;
+        long empty = ~occupied;
+        int enPassant = position.getEnPassantSquare();
+        long pawns = position.pieces(side, Piece.Type.PAWN) & fromMask;
+        while (pawns != 0) {
+            int from = Long.numberOfTrailingZeros(pawns);
+            pawns &= pawns - 1;
+
+            long targets = 0L;
+            int oneStep = from + forward;
+            if ((empty & Position.bit(oneStep)) != 0) {
+                targets |= Position.bit(oneStep);
+                if (Position.row(from) == startRow && (empty & Position.bit(oneStep + forward)) != 0) {
+                    targets |= Position.bit(oneStep + forward);
+                }
+            }
+            targets |= Attacks.pawn(side, from) & enemies;
+            targets &= checkMask & pawnTargetMask;
+            if ((pinned & Position.bit(from)) != 0) {
+                targets &= Attacks.line(king, from);
+            }
+            count = addPawnMoves(moves, count, from, targets, enemies, promotionRow);
+
+            // En passant lifts two pawns off one rank at once, so it is verified directly
+            if (enPassant != Position.NO_SQUARE && (Attacks.pawn(side, from) & Position.bit(enPassant) & toMask) != 0) {
+                int capturedSquare = enPassant - forward;
+                long after = (occupied & ~Position.bit(from) & ~Position.bit(capturedSquare)) | Position.bit(enPassant);
+                if (!isAttacked(position, king, them, after, Position.bit(capturedSquare))) {
+                    count = add(moves, count, Move.encode(from, enPassant, Move.EN_PASSANT));
+                }
+            }
+            if (firstOnly && count > 0) {
+                return count;
+            }
+        }
+
+        // Castling: never out of check, through an attacked square or over a piece
+        int home = white ? Position.square(7, 4) : Position.square(0, 4);
+        if (checkers == 0 && king == home && (fromMask & Position.bit(king)) != 0 && !capturesOnly) {
+            int kingside = white ? Position.WHITE_KINGSIDE : Position.BLACK_KINGSIDE;
+            int queenside = white ? Position.WHITE_QUEENSIDE : Position.BLACK_QUEENSIDE;
+            Piece kingsideRook = position.getPiece(king + 3);
+            Piece queensideRook = position.getPiece(king - 4);
+            if (position.canCastle(kingside) && (toMask & Position.bit(king + 2)) != 0
+                    && kingsideRook != null && kingsideRook.getType() == Piece.Type.ROOK && kingsideRook.getColor() == side
+                    && (occupied & Attacks.between(king, king + 3)) == 0
+                    && !isAttacked(position, king + 1, them, occupied, 0L)
+                    && !isAttacked(position, king + 2, them, occupied, 0L)) {
+                count = add(moves, count, Move.encode(king, king + 2, Move.KING_CASTLE));
+            }
+            if (position.canCastle(queenside) && (toMask & Position.bit(king - 2)) != 0
+                    && queensideRook != null && queensideRook.getType() == Piece.Type.ROOK && queensideRook.getColor() == side
+                    && (occupied & Attacks.between(king, king - 4)) == 0
+                    && !isAttacked(position, king - 1, them, occupied, 0L)
+                    && !isAttacked(position, king - 2, them, occupied, 0L)) {
+                count = add(moves, count, Move.encode(king, king - 2, Move.QUEEN_CASTLE));
+            }
+        }
+
+        return count;
+    }
+}
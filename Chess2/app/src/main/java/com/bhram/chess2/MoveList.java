@@ -0,0 +1,120 @@
+package com.bhram.chess2;
+
+import java.util.Arrays;
+
+/**
+ * MoveList is a growable list of packed moves (see Move) backed by a plain
+ * int array, so adding and reading moves never boxes or allocates once the
+ * list has reached its working size. Lists are meant to be kept and reused:
+ * the generator clears and refills them on every call.
+ */
+public final class MoveList {
+
+    private int[] moves;
+    private int size;
+
+    public MoveList() {
+        this(MoveGenerator.MAX_MOVES);
+    }
+
+    public MoveList(int capacity) {
+        moves = new int[Math.max(capacity, 1)];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + ", size " + size);
+        }
+        return moves[index];
+    }
+
+    public void set(int index, int move) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + ", size " + size);
+        }
+        moves[index] = move;
+    }
+
+    public void add(int move) {
+        if (size == moves.length) {
+            moves = Arrays.copyOf(moves, size * 2);
+        }
+        moves[size++] = move;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public boolean contains(int move) {
+        for (int i = 0; i < size; i++) {
+            if (moves[i] == move) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if any move in the list lands on the given square
+     */
+    public boolean containsTarget(int to) {
+        for (int i = 0; i < size; i++) {
+            if (Move.to(moves[i]) == to) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Finds the first move between two squares, or Move.NONE. Promotions are
+     * generated queen first, so this picks the queen when a pawn promotes.
+     */
+    public int find(int from, int to) {
+        for (int i = 0; i < size; i++) {
+            if (Move.from(moves[i]) == from && Move.to(moves[i]) == to) {
+                return moves[i];
+            }
+        }
+        return Move.NONE;
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(moves, size);
+    }
+
+    /**
+     * Gives the generator direct access to the backing array, grown to at least the given capacity
+     */
+    int[] buffer(int capacity) {
+        if (moves.length < capacity) {
+            moves = new int[capacity];
+        }
+        return moves;
+    }
+
+    void setSize(int size) {
+        this.size = size;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(Move.toString(moves[i]));
+        }
+        return sb.append(']').toString();
+    }
+}
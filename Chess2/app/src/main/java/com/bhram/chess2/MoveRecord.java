@@ -11,11 +11,12 @@ public class MoveRecord {
     private boolean isEnPassant;
     private boolean isPromotion;
     private Piece.Color playerColor;
+    private int move;
     
     public MoveRecord(int fromRow, int fromCol, int toRow, int toCol, 
                      Piece movingPiece, Piece capturedPiece,
                      boolean isCastling, boolean isEnPassant, boolean isPromotion,
-                     Piece.Color playerColor) {
+                     Piece.Color playerColor, int move) {
         this.fromRow = fromRow;
         this.fromCol = fromCol;
         this.toRow = toRow;
@@ -26,6 +27,7 @@ public class MoveRecord {
         this.isEnPassant = isEnPassant;
         this.isPromotion = isPromotion;
         this.playerColor = playerColor;
+        this.move = move;
     }
     
     // Getters
@@ -39,4 +41,5 @@ public class MoveRecord {
     public boolean isEnPassant() { return isEnPassant; }
     public boolean isPromotion() { return isPromotion; }
     public Piece.Color getPlayerColor() { return playerColor; }
+    public int getMove() { return move; }
 }
\ No newline at end of file
@@ -0,0 +1,244 @@
+package com.bhram.chess2;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Perft counts the leaf nodes of the legal move tree to a fixed depth.
+ * Comparing the counts with published values for the reference positions
+ * is the standard way to prove a move generator correct, and the time it
+ * takes is the baseline for any performance work on the rules engine.
+ *
+ * Besides the plain count there is a per-root-move "divide" breakdown for
+ * tracking down generator bugs, a fork/join mode that splits the root moves
+ * across cores, and an optional hash table that remembers subtree counts so
+ * transpositions are only counted once.
+ */
+public class Perft {
+
+    /**
+     * Standard reference positions with their known node counts by depth (index 0 is depth 1)
+     */
+    public static final String[] REFERENCE_FENS = {
+        Position.START_FEN,
+        "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+        "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+        "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+        "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+        "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10"
+    };
+
+    public static final long[][] REFERENCE_COUNTS = {
+        {20, 400, 8902, 197281, 4865609, 119060324},
+        {48, 2039, 97862, 4085603, 193690690},
+        {14, 191, 2812, 43238, 674624, 11030083, 178633661},
+        {6, 264, 9467, 422333, 15833292},
+        {44, 1486, 62379, 2103487, 89941194},
+        {46, 2079, 89890, 3894594, 164075551}
+    };
+
+    /**
+     * Node count and timing of one perft run
+     */
+    public static class Result {
+        private final long nodes;
+        private final long nanos;
+
+        public Result(long nodes, long nanos) {
+            this.nodes = nodes;
+            this.nanos = nanos;
+        }
+
+        public long getNodes() { return nodes; }
+
+        public long getNanos() { return nanos; }
+
+        public long getNodesPerSecond() {
+            return nanos == 0 ? 0 : nodes * 1_000_000_000L / nanos;
+        }
+
+        @Override
+        public String toString() {
+            return nodes + " nodes in " + (nanos / 1_000_000) + " ms (" + getNodesPerSecond() + " nps)";
+        }
+    }
+
+    // Optional subtree table. Each slot stores (nodes << 8 | depth) and that value
+    // XORed with the key, so a slot torn by concurrent writers simply fails to verify.
+    private final long[] hashChecks;
+    private final long[] hashData;
+    private final int hashMask;
+
+    public Perft() {
+        hashChecks = null;
+        hashData = null;
+        hashMask = 0;
+    }
+
+    /**
+     * Creates a perft counter with a subtree hash table of about the given size
+     */
+    public Perft(int hashMegabytes) {
+        if (hashMegabytes <= 0) {
+            hashChecks = null;
+            hashData = null;
+            hashMask = 0;
+            return;
+        }
+        long entries = Long.highestOneBit(hashMegabytes * 1024L * 1024L / 16);
+        hashChecks = new long[(int) entries];
+        hashData = new long[(int) entries];
+        hashMask = (int) entries - 1;
+    }
+
+    /**
+     * Counts the leaf nodes to the given depth
+     */
+    public long count(Position position, int depth) {
+        if (depth <= 0) {
+            return 1;
+        }
+        return count(position, depth, new int[depth][MoveGenerator.MAX_MOVES]);
+    }
+
+    /**
+     * Counts the leaf nodes to the given depth, timing the run
+     */
+    public Result run(Position position, int depth, boolean parallel) {
+        long start = System.nanoTime();
+        long nodes = parallel ? countParallel(position, depth) : count(position, depth);
+        return new Result(nodes, System.nanoTime() - start);
+    }
+
+    /**
+     * Counts the leaf nodes below each root move, keyed by the move in coordinate notation
+     */
+    public Map<String, Long> divide(Position position, int depth) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        int[] rootMoves = new int[MoveGenerator.MAX_MOVES];
+        int count = MoveGenerator.generateLegalMoves(position, position.getSideToMove(), rootMoves);
+        int[][] buffers = new int[Math.max(depth - 1, 1)][MoveGenerator.MAX_MOVES];
+        for (int i = 0; i < count; i++) {
+            position.makeMove(rootMoves[i]);
+            counts.put(Move.toString(rootMoves[i]), depth <= 1 ? 1L : count(position, depth - 1, buffers));
+            position.unmakeMove();
+        }
+        return counts;
+    }
+
+    /**
+     * Counts the leaf nodes to the given depth, searching the root moves in parallel
+     * on the common fork/join pool
+     */
+    public long countParallel(Position position, int depth) {
+        return countParallel(position, depth, ForkJoinPool.commonPool());
+    }
+
+    public long countParallel(Position position, int depth, ForkJoinPool pool) {
+        if (depth <= 1) {
+            return count(position, depth);
+        }
+        return pool.invoke(new RootTask(position, depth));
+    }
+
+    private long count(Position position, int depth, int[][] buffers) {
+        int[] moves = buffers[depth - 1];
+        int count = MoveGenerator.generateLegalMoves(position, position.getSideToMove(), moves);
+        if (depth == 1) {
+            return count;
+        }
+
+        long key = 0L;
+        if (hashChecks != null) {
+            key = position.getKey() ^ depth;
+            int slot = (int) key & hashMask;
+            long data = hashData[slot];
+            if ((hashChecks[slot] ^ data) == key && (data & 0xFF) == depth) {
+                return data >>> 8;
+            }
+        }
+
+        long nodes = 0;
+        for (int i = 0; i < count; i++) {
+            position.makeMove(moves[i]);
+            nodes += count(position, depth - 1, buffers);
+            position.unmakeMove();
+        }
+
+        if (hashChecks != null) {
+            int slot = (int) key & hashMask;
+            long data = (nodes << 8) | depth;
+            hashData[slot] = data;
+            hashChecks[slot] = key ^ data;
+        }
+        return nodes;
+    }
+
+    private class RootTask extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        private final Position position;
+        private final int depth;
+
+        RootTask(Position position, int depth) {
+            this.position = position;
+            this.depth = depth;
+        }
+
+        @Override
+        protected Long compute() {
+            int[] moves = new int[MoveGenerator.MAX_MOVES];
+            int count = MoveGenerator.generateLegalMoves(position, position.getSideToMove(), moves);
+            SubtreeTask[] tasks = new SubtreeTask[count];
+            for (int i = 0; i < count; i++) {
+                Position child = new Position(position);
+                child.makeMove(moves[i]);
+                tasks[i] = new SubtreeTask(child, depth - 1);
+            }
+            invokeAll(tasks);
+            long nodes = 0;
+            for (SubtreeTask task : tasks) {
+                nodes += task.join();
+            }
+            return nodes;
+        }
+    }
+
+    private class SubtreeTask extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        private final Position position;
+        private final int depth;
+
+        SubtreeTask(Position position, int depth) {
+            this.position = position;
+            this.depth = depth;
+        }
+
+        @Override
+        protected Long compute() {
+            return count(position, depth);
+        }
+    }
+
+    /**
+     * Runs the reference positions to the given depth and prints the counts and speed
+     */
+    public static void main(String[] args) {
+        int maxDepth = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        boolean parallel = args.length > 1 && args[1].equals("parallel");
+        int hashMegabytes = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+        Perft perft = new Perft(hashMegabytes);
+
+        for (int i = 0; i < REFERENCE_FENS.length; i++) {
+            int depth = Math.min(maxDepth, REFERENCE_COUNTS[i].length);
+            Position position = Position.fromFen(REFERENCE_FENS[i]);
+            Result result = perft.run(position, depth, parallel);
+            long expected = REFERENCE_COUNTS[i][depth - 1];
+            System.out.println(REFERENCE_FENS[i] + " depth " + depth + ": " + result
+                    + (result.getNodes() == expected ? " OK" : " MISMATCH, expected " + expected));
+        }
+    }
+}
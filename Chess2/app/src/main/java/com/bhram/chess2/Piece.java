@@ -1,6 +1,13 @@
 package com.bhram.chess2;
 
-public class Piece {
+/**
+ * A chess piece: just a color and a type. Pieces are immutable and there is
+ * exactly one instance per color/type combination, obtained with Piece.of,
+ * so boards can share them freely and compare them by reference. Whether a
+ * king or rook may still castle is game state, kept as castling rights in
+ * Position, not something the piece remembers.
+ */
+public final class Piece {
     public enum Color {
         WHITE, BLACK
     }
@@ -10,29 +17,44 @@ public class Piece {
         PAWN, ROOK, KNIGHT, BISHOP, QUEEN, KING
     }
 
-    private Color color;
+    // Indexed like Position.pieceIndex: color * 6 + type
+    private static final Piece[] PIECES = new Piece[12];
 
-    private Type type;
+    static {
+        for (Color color : Color.values()) {
+            for (Type type : Type.values()) {
+                PIECES[color.ordinal() * 6 + type.ordinal()] = new Piece(color, type);
+            }
+        }
+    }
+
+    private final Color color;
 
-    private boolean hasMoved;
+    private final Type type;
 
 
-    public Piece(Color color, Type type) {
+    private Piece(Color color, Type type) {
         this.color = color;
         this.type = type;
-        this.hasMoved = false;
     }
 
-    public Color getColor() { return color; }
-
-    public Type getType() { return type; }
+    /**
+     * The shared piece of the given color and type
+     */
+    public static Piece of(Color color, Type type) {
+        return PIECES[color.ordinal() * 6 + type.ordinal()];
+    }
 
-    public boolean hasMoved() { return hasMoved; }
+    /**
+     * The shared piece with the given Position.pieceIndex
+     */
+    static Piece fromIndex(int index) {
+        return PIECES[index];
+    }
 
+    public Color getColor() { return color; }
 
-    public void setHasMoved(boolean hasMoved) {
-        this.hasMoved = hasMoved;
-    }
+    public Type getType() { return type; }
 
     @Override
     public String toString() {
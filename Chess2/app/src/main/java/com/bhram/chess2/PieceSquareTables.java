@@ -0,0 +1,172 @@
+package com.bhram.chess2;
+
+/**
+ * PieceSquareTables holds the value of every piece on every square, once
+ * for the middlegame and once for the endgame, with the piece's material
+ * value included. A position keeps the sums of both up to date as pieces
+ * are placed and removed, and the evaluation blends them by game phase.
+ *
+ * Values are in centipawns from White's point of view, so Black's entries
+ * are the negated, vertically mirrored White ones. The tables below are
+ * written from White's side with the eighth rank first, which is the
+ * board's own square order.
+ */
+public final class PieceSquareTables {
+
+    // Material values in Piece.Type order
+    private static final int[] MIDDLEGAME_VALUES = {82, 477, 337, 365, 1025, 0};
+    private static final int[] ENDGAME_VALUES = {94, 512, 281, 297, 936, 0};
+
+    private static final int[] PAWN_MIDDLEGAME = {
+          0,   0,   0,   0,   0,   0,   0,   0,
+         50,  50,  50,  50,  50,  50,  50,  50,
+         10,  10,  20,  30,  30,  20,  10,  10,
+          5,   5,  10,  25,  25,  10,   5,   5,
+          0,   0,   0,  20,  20,   0,   0,   0,
+          5,  -5, -10,   0,   0, -10,  -5,   5,
+          5,  10,  10, -20, -20,  10,  10,   5,
+          0,   0,   0,   0,   0,   0,   0,   0,
+    };
+
+    // In the endgame a pawn is worth more the closer it is to promoting
+    private static final int[] PAWN_ENDGAME = {
+          0,   0,   0,   0,   0,   0,   0,   0,
+         80,  80,  80,  80,  80,  80,  80,  80,
+         50,  50,  50,  50,  50,  50,  50,  50,
+         30,  30,  30,  30,  30,  30,  30,  30,
+         15,  15,  15,  15,  15,  15,  15,  15,
+          5,   5,   5,   5,   5,   5,   5,   5,
+          0,   0,   0,   0,   0,   0,   0,   0,
+          0,   0,   0,   0,   0,   0,   0,   0,
+    };
+
+    private static final int[] ROOK_MIDDLEGAME = {
+          0,   0,   0,   0,   0,   0,   0,   0,
+          5,  10,  10,  10,  10,  10,  10,   5,
+         -5,   0,   0,   0,   0,   0,   0,  -5,
+         -5,   0,   0,   0,   0,   0,   0,  -5,
+         -5,   0,   0,   0,   0,   0,   0,  -5,
+         -5,   0,   0,   0,   0,   0,   0,  -5,
+         -5,   0,   0,   0,   0,   0,   0,  -5,
+          0,   0,   0,   5,   5,   0,   0,   0,
+    };
+
+    private static final int[] ROOK_ENDGAME = new int[64];
+
+    private static final int[] KNIGHT = {
+        -50, -40, -30, -30, -30, -30, -40, -50,
+        -40, -20,   0,   0,   0,   0, -20, -40,
+        -30,   0,  10,  15,  15,  10,   0, -30,
+        -30,   5,  15,  20,  20,  15,   5, -30,
+        -30,   0,  15,  20,  20,  15,   0, -30,
+        -30,   5,  10,  15,  15,  10,   5, -30,
+        -40, -20,   0,   5,   5,   0, -20, -40,
+        -50, -40, -30, -30, -30, -30, -40, -50,
+    };
+
+    private static final int[] BISHOP = {
+        -20, -10, -10, -10, -10, -10, -10, -20,
+        -10,   0,   0,   0,   0,   0,   0, -10,
+        -10,   0,   5,  10,  10,   5,   0, -10,
+        -10,   5,   5,  10,  10,   5,   5, -10,
+        -10,   0,  10,  10,  10,  10,   0, -10,
+        -10,  10,  10,  10,  10,  10,  10, -10,
+        -10,   5,   0,   0,   0,   0,   5, -10,
+        -20, -10, -10, -10, -10, -10, -10, -20,
+    };
+
+    private static final int[] QUEEN = {
+        -20, -10, -10,  -5,  -5, -10, -10, -20,
+        -10,   0,   0,   0,   0,   0,   0, -10,
+        -10,   0,   5,   5,   5,   5,   0, -10,
+         -5,   0,   5,   5,   5,   5,   0,  -5,
+          0,   0,   5,   5,   5,   5,   0,  -5,
+        -10,   5,   5,   5,   5,   5,   0, -10,
+        -10,   0,   5,   0,   0,   0,   0, -10,
+        -20, -10, -10,  -5,  -5, -10, -10, -20,
+    };
+
+    // The king hides behind its pawns while queens are on, then heads for the centre
+    private static final int[] KING_MIDDLEGAME = {
+        -30, -40, -40, -50, -50, -40, -40, -30,
+        -30, -40, -40, -50, -50, -40, -40, -30,
+        -30, -40, -40, -50, -50, -40, -40, -30,
+        -30, -40, -40, -50, -50, -40, -40, -30,
+        -20, -30, -30, -40, -40, -30, -30, -20,
+        -10, -20, -20, -20, -20, -20, -20, -10,
+         20,  20,   0,   0,   0,   0,  20,  20,
+         20,  30,  10,   0,   0,  10,  30,  20,
+    };
+
+    private static final int[] KING_ENDGAME = {
+        -50, -40, -30, -20, -20, -30, -40, -50,
+        -30, -20, -10,   0,   0, -10, -20, -30,
+        -30, -10,  20,  30,  30,  20, -10, -30,
+        -30, -10,  30,  40,  40,  30, -10, -30,
+        -30, -10,  30,  40,  40,  30, -10, -30,
+        -30, -10,  20,  30,  30,  20, -10, -30,
+        -30, -30,   0,   0,   0,   0, -30, -30,
+        -50, -30, -30, -30, -30, -30, -30, -50,
+    };
+
+    // Indexed by piece index and square, material included and signed for the piece's color
+    private static final int[][] MIDDLEGAME = build(MIDDLEGAME_VALUES,
+            PAWN_MIDDLEGAME, ROOK_MIDDLEGAME, KNIGHT, BISHOP, QUEEN, KING_MIDDLEGAME);
+    private static final int[][] ENDGAME = build(ENDGAME_VALUES,
+            PAWN_ENDGAME, ROOK_ENDGAME, KNIGHT, BISHOP, QUEEN, KING_ENDGAME);
+
+    private PieceSquareTables() {
+    }
+
+    private static int[][] build(int[] values, int[]... whiteTables) {
+        int[][] tables = new int[12][64];
+        for (int type = 0; type < 6; type++) {
+            int white = Position.pieceIndex(Piece.Color.WHITE, Piece.Type.values()[type]);
+            int black = Position.pieceIndex(Piece.Color.BLACK, Piece.Type.values()[type]);
+            for (int sq = 0; sq < 64; sq++) {
+                tables[white][sq] = values[type] + whiteTables[type][sq];
+                // Mirroring the row turns Black's square into the matching White one
+                tables[black][sq] = -(values[type] + whiteTables[type][sq ^ 56]);
+            }
+        }
+        return tables;
+    }
+
+    static int middlegame(int index, int square) {
+        return MIDDLEGAME[index][square];
+    }
+
+    static int endgame(int index, int square) {
+        return ENDGAME[index][square];
+    }
+
+    /**
+     * Sums the middlegame table over every piece from scratch, for checking the
+     * value a position keeps incrementally
+     */
+    public static int middlegame(Position position) {
+        return sum(position, MIDDLEGAME);
+    }
+
+    /**
+     * Sums the endgame table over every piece from scratch
+     */
+    public static int endgame(Position position) {
+        return sum(position, ENDGAME);
+    }
+
+    private static int sum(Position position, int[][] tables) {
+        int total = 0;
+        for (Piece.Color color : Piece.Color.values()) {
+            for (Piece.Type type : Piece.Type.values()) {
+                int[] table = tables[Position.pieceIndex(color, type)];
+                long bits = position.pieces(color, type);
+                while (bits != 0) {
+                    total += table[Long.numberOfTrailingZeros(bits)];
+                    bits &= bits - 1;
+                }
+            }
+        }
+        return total;
+    }
+}
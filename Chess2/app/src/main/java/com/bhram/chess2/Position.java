@@ -0,0 +1,851 @@
+package com.bhram.chess2;
+
+import java.util.Arrays;
+
+/**
+ * Position holds the pieces of a chess game as 64-bit bitboards.
+ * There is one bitboard per color/type combination plus an occupancy
+ * bitboard per color, so rule queries can be answered with bitwise
+ * operations instead of scanning an 8x8 array.
+ *
+ * Squares are numbered row * 8 + col, matching the row/col convention
+ * used everywhere else (row 0 is Black's back rank, row 7 is White's).
+ * A mailbox array is kept alongside the bitboards so the UI can still
+ * look up the Piece standing on a square, together with a list of each
+ * color's occupied squares and the square of each king, so code that
+ * visits pieces touches only the live ones.
+ *
+ * Moves (packed ints, see Move) are applied with makeMove and reverted
+ * with unmakeMove. Everything a move destroys - the captured piece,
+ * castling rights, en passant square and half-move clock - is pushed on
+ * an undo stack of primitive arrays, so stepping either way is O(1) and
+ * allocates nothing once the stack has grown to the game's length.
+ * A Zobrist key (see Zobrist) is updated alongside every change, so the
+ * position's identity is always available as a single long.
+ */
+public class Position {
+
+    public static final int NO_SQUARE = -1;
+
+    // Castling rights bits
+    public static final int WHITE_KINGSIDE = 1;
+    public static final int WHITE_QUEENSIDE = 2;
+    public static final int BLACK_KINGSIDE = 4;
+    public static final int BLACK_QUEENSIDE = 8;
+    public static final int ALL_CASTLING = 15;
+
+    // Rights kept when a piece moves from or to each square
+    private static final int[] CASTLING_MASK = new int[64];
+
+    static {
+        for (int sq = 0; sq < 64; sq++) {
+            CASTLING_MASK[sq] = ALL_CASTLING;
+        }
+        CASTLING_MASK[square(7, 4)] &= ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+        CASTLING_MASK[square(7, 7)] &= ~WHITE_KINGSIDE;
+        CASTLING_MASK[square(7, 0)] &= ~WHITE_QUEENSIDE;
+        CASTLING_MASK[square(0, 4)] &= ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+        CASTLING_MASK[square(0, 7)] &= ~BLACK_KINGSIDE;
+        CASTLING_MASK[square(0, 0)] &= ~BLACK_QUEENSIDE;
+    }
+
+    private final long[] pieceBitboards;
+    private final long[] colorBitboards;
+    private long occupied;
+    private final Piece[] squares;
+
+    // Squares of each color's pieces in no particular order, and each occupied square's
+    // slot in its list, so pieces come and go in O(1) and loops visit only live pieces
+    private final int[][] pieceLists;
+    private final int[] pieceCounts;
+    private final int[] pieceListIndex;
+    private final int[] kingSquares;
+
+    private int castlingRights;
+    private int enPassantSquare;
+    private Piece.Color sideToMove;
+    private int halfMoveClock;
+    private int fullMoveNumber;
+
+    // Attack bitmaps and counts, only maintained once trackAttacks has been called
+    private AttackMap attackMap;
+
+    // Zobrist hash of the position, and the en passant term currently mixed into it
+    private long key;
+    private long enPassantKey;
+    // Zobrist hash of the pawns alone, for caching pawn structure evaluations
+    private long pawnKey;
+
+    // Piece counts by color and type, packed as described in Material
+    private long materialKey;
+
+    // Sums of PieceSquareTables over every piece, material included, from White's side
+    private int middlegameScore;
+    private int endgameScore;
+
+    // Undo stack, one entry per move made
+    private int ply;
+    private int[] undoMoves;
+    private int[] undoStates;
+    private long[] undoKeys;
+    // Piece index of the captured piece, or -1
+    private byte[] undoCaptures;
+    // Keys of positions reached before the undo stack began, oldest first, back to the last
+    // capture or pawn move, so a copy still recognises repetitions of the original's history
+    private long[] priorKeys;
+    private int priorCount;
+
+    public Position() {
+        pieceBitboards = new long[12];
+        colorBitboards = new long[2];
+        occupied = 0L;
+        squares = new Piece[64];
+        // Room for any setup, even ones with more than the sixteen pieces a side starts with
+        pieceLists = new int[2][64];
+        pieceCounts = new int[2];
+        pieceListIndex = new int[64];
+        kingSquares = new int[] {NO_SQUARE, NO_SQUARE};
+        castlingRights = 0;
+        enPassantSquare = NO_SQUARE;
+        sideToMove = Piece.Color.WHITE;
+        halfMoveClock = 0;
+        fullMoveNumber = 1;
+        key = 0L;
+        enPassantKey = 0L;
+        pawnKey = 0L;
+        materialKey = 0L;
+        middlegameScore = 0;
+        endgameScore = 0;
+        ply = 0;
+        undoMoves = new int[256];
+        undoStates = new int[256];
+        undoKeys = new long[256];
+        undoCaptures = new byte[256];
+        priorKeys = new long[128];
+        priorCount = 0;
+    }
+
+    /**
+     * Creates an independent copy of another position's pieces and game state.
+     * The copy starts with an empty undo stack; see copyFrom.
+     */
+    public Position(Position other) {
+        this();
+        copyFrom(other);
+    }
+
+    /**
+     * Replaces this position with a copy of another's pieces and game state, leaving the
+     * undo stack empty. The keys of the other position's earlier positions back to its
+     * last capture or pawn move are kept, so repetitionCount still counts repetitions of
+     * them. Unlike restoring a snapshot this allocates nothing, so a search can reuse
+     * one position for every root.
+     */
+    public void copyFrom(Position other) {
+        if (other == this) {
+            return;
+        }
+        int window = Math.min(other.halfMoveClock, other.ply + other.priorCount);
+        if (window > priorKeys.length) {
+            priorKeys = new long[Math.max(window, priorKeys.length * 2)];
+        }
+        for (int back = 1; back <= window; back++) {
+            priorKeys[window - back] = other.earlierKey(back);
+        }
+        priorCount = window;
+        ply = 0;
+
+        // Pieces are shared immutable instances, so the board is copied as plain arrays
+        System.arraycopy(other.pieceBitboards, 0, pieceBitboards, 0, pieceBitboards.length);
+        System.arraycopy(other.colorBitboards, 0, colorBitboards, 0, colorBitboards.length);
+        occupied = other.occupied;
+        System.arraycopy(other.squares, 0, squares, 0, squares.length);
+        for (int c = 0; c < 2; c++) {
+            System.arraycopy(other.pieceLists[c], 0, pieceLists[c], 0, other.pieceCounts[c]);
+            pieceCounts[c] = other.pieceCounts[c];
+            kingSquares[c] = other.kingSquares[c];
+        }
+        System.arraycopy(other.pieceListIndex, 0, pieceListIndex, 0, pieceListIndex.length);
+        castlingRights = other.castlingRights;
+        enPassantSquare = other.enPassantSquare;
+        sideToMove = other.sideToMove;
+        halfMoveClock = other.halfMoveClock;
+        fullMoveNumber = other.fullMoveNumber;
+        key = other.key;
+        enPassantKey = other.enPassantKey;
+        pawnKey = other.pawnKey;
+        materialKey = other.materialKey;
+        middlegameScore = other.middlegameScore;
+        endgameScore = other.endgameScore;
+        if (attackMap != null) {
+            attackMap.rebuild(this);
+        }
+    }
+
+    public static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    /**
+     * Creates a position from Forsyth-Edwards Notation
+     */
+    public static Position fromFen(String fen) {
+        Position position = new Position();
+        position.setFromFen(fen);
+        return position;
+    }
+
+    /**
+     * Places the standard starting position on an empty board
+     */
+    public void setupInitialPosition() {
+        clear();
+
+        Piece.Type[] backRank = {
+            Piece.Type.ROOK, Piece.Type.KNIGHT, Piece.Type.BISHOP, Piece.Type.QUEEN,
+            Piece.Type.KING, Piece.Type.BISHOP, Piece.Type.KNIGHT, Piece.Type.ROOK
+        };
+
+        for (int col = 0; col < 8; col++) {
+            setPiece(square(0, col), Piece.of(Piece.Color.BLACK, backRank[col]));
+            setPiece(square(1, col), Piece.of(Piece.Color.BLACK, Piece.Type.PAWN));
+            setPiece(square(6, col), Piece.of(Piece.Color.WHITE, Piece.Type.PAWN));
+            setPiece(square(7, col), Piece.of(Piece.Color.WHITE, backRank[col]));
+        }
+        setCastlingRights(ALL_CASTLING);
+    }
+
+    /**
+     * Removes every piece from the board
+     */
+    public void clear() {
+        for (int i = 0; i < pieceBitboards.length; i++) {
+            pieceBitboards[i] = 0L;
+        }
+        colorBitboards[0] = 0L;
+        colorBitboards[1] = 0L;
+        occupied = 0L;
+        for (int sq = 0; sq < 64; sq++) {
+            squares[sq] = null;
+        }
+        pieceCounts[0] = 0;
+        pieceCounts[1] = 0;
+        kingSquares[0] = NO_SQUARE;
+        kingSquares[1] = NO_SQUARE;
+        castlingRights = 0;
+        enPassantSquare = NO_SQUARE;
+        sideToMove = Piece.Color.WHITE;
+        halfMoveClock = 0;
+        fullMoveNumber = 1;
+        key = 0L;
+        enPassantKey = 0L;
+        pawnKey = 0L;
+        materialKey = 0L;
+        middlegameScore = 0;
+        endgameScore = 0;
+        if (attackMap != null) {
+            attackMap.reset();
+        }
+        ply = 0;
+        priorCount = 0;
+    }
+
+    /**
+     * Replaces the whole position with one described in Forsyth-Edwards Notation.
+     * The move counters are optional and default to 0 and 1.
+     */
+    public void setFromFen(String fen) {
+        String[] fields = fen.trim().split("\\s+");
+        if (fields.length < 4) {
+            throw new IllegalArgumentException("Invalid FEN: " + fen);
+        }
+        clear();
+
+        int row = 0;
+        int col = 0;
+        for (char c : fields[0].toCharArray()) {
+            if (c == '/') {
+                row++;
+                col = 0;
+            } else if (c >= '1' && c <= '8') {
+                col += c - '0';
+            } else {
+                Piece.Type type = typeFromChar(Character.toLowerCase(c));
+                if (type == null || row > 7 || col > 7) {
+                    throw new IllegalArgumentException("Invalid FEN: " + fen);
+                }
+                Piece.Color color = Character.isUpperCase(c) ? Piece.Color.WHITE : Piece.Color.BLACK;
+                setPiece(square(row, col), Piece.of(color, type));
+                col++;
+            }
+        }
+
+        setSideToMove(fields[1].equals("b") ? Piece.Color.BLACK : Piece.Color.WHITE);
+
+        int rights = 0;
+        for (char c : fields[2].toCharArray()) {
+            switch (c) {
+                case 'K': rights |= WHITE_KINGSIDE; break;
+                case 'Q': rights |= WHITE_QUEENSIDE; break;
+                case 'k': rights |= BLACK_KINGSIDE; break;
+                case 'q': rights |= BLACK_QUEENSIDE; break;
+                default: break;
+            }
+        }
+        setCastlingRights(rights);
+
+        if (!fields[3].equals("-")) {
+            setEnPassantSquare(square(8 - (fields[3].charAt(1) - '0'), fields[3].charAt(0) - 'a'));
+        }
+
+        halfMoveClock = fields.length > 4 ? Integer.parseInt(fields[4]) : 0;
+        fullMoveNumber = fields.length > 5 ? Integer.parseInt(fields[5]) : 1;
+    }
+
+    /**
+     * Takes a compact copy of the pieces and game state, without the undo stack
+     */
+    public PositionSnapshot snapshot() {
+        return new PositionSnapshot(pieceBitboards.clone(), castlingRights, enPassantSquare,
+                sideToMove, halfMoveClock, fullMoveNumber);
+    }
+
+    /**
+     * Replaces the whole position with a snapshot. The undo stack starts out empty.
+     */
+    public void restore(PositionSnapshot snapshot) {
+        clear();
+        for (int index = 0; index < pieceBitboards.length; index++) {
+            long bits = snapshot.pieces(index);
+            while (bits != 0) {
+                setPiece(Long.numberOfTrailingZeros(bits), Piece.fromIndex(index));
+                bits &= bits - 1;
+            }
+        }
+        setSideToMove(snapshot.getSideToMove());
+        setCastlingRights(snapshot.getCastlingRights());
+        setEnPassantSquare(snapshot.getEnPassantSquare());
+        halfMoveClock = snapshot.getHalfMoveClock();
+        fullMoveNumber = snapshot.getFullMoveNumber();
+    }
+
+    /**
+     * Describes the position in Forsyth-Edwards Notation
+     */
+    public String toFen() {
+        StringBuilder sb = new StringBuilder();
+        for (int row = 0; row < 8; row++) {
+            int empty = 0;
+            for (int col = 0; col < 8; col++) {
+                Piece piece = squares[square(row, col)];
+                if (piece == null) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    sb.append(empty);
+                    empty = 0;
+                }
+                char c = charFromType(piece.getType());
+                sb.append(piece.getColor() == Piece.Color.WHITE ? Character.toUpperCase(c) : c);
+            }
+            if (empty > 0) {
+                sb.append(empty);
+            }
+            if (row < 7) {
+                sb.append('/');
+            }
+        }
+
+        sb.append(sideToMove == Piece.Color.WHITE ? " w " : " b ");
+        if (castlingRights == 0) {
+            sb.append('-');
+        } else {
+            if (canCastle(WHITE_KINGSIDE)) sb.append('K');
+            if (canCastle(WHITE_QUEENSIDE)) sb.append('Q');
+            if (canCastle(BLACK_KINGSIDE)) sb.append('k');
+            if (canCastle(BLACK_QUEENSIDE)) sb.append('q');
+        }
+        sb.append(' ');
+        if (enPassantSquare == NO_SQUARE) {
+            sb.append('-');
+        } else {
+            sb.append((char) ('a' + col(enPassantSquare))).append(8 - row(enPassantSquare));
+        }
+        sb.append(' ').append(halfMoveClock).append(' ').append(fullMoveNumber);
+        return sb.toString();
+    }
+
+    private static Piece.Type typeFromChar(char c) {
+        switch (c) {
+            case 'p': return Piece.Type.PAWN;
+            case 'r': return Piece.Type.ROOK;
+            case 'n': return Piece.Type.KNIGHT;
+            case 'b': return Piece.Type.BISHOP;
+            case 'q': return Piece.Type.QUEEN;
+            case 'k': return Piece.Type.KING;
+            default: return null;
+        }
+    }
+
+    private static char charFromType(Piece.Type type) {
+        switch (type) {
+            case PAWN: return 'p';
+            case ROOK: return 'r';
+            case KNIGHT: return 'n';
+            case BISHOP: return 'b';
+            case QUEEN: return 'q';
+            default: return 'k';
+        }
+    }
+
+    public static int square(int row, int col) {
+        return (row << 3) | col;
+    }
+
+    public static int row(int square) {
+        return square >>> 3;
+    }
+
+    public static int col(int square) {
+        return square & 7;
+    }
+
+    public static long bit(int square) {
+        return 1L << square;
+    }
+
+    /**
+     * Index of the bitboard holding pieces of the given color and type
+     */
+    public static int pieceIndex(Piece.Color color, Piece.Type type) {
+        return color.ordinal() * 6 + type.ordinal();
+    }
+
+    public Piece getPiece(int square) {
+        return squares[square];
+    }
+
+    public Piece getPiece(int row, int col) {
+        return squares[square(row, col)];
+    }
+
+    public boolean isEmpty(int square) {
+        return (occupied & bit(square)) == 0;
+    }
+
+    public long pieces(Piece.Color color, Piece.Type type) {
+        return pieceBitboards[pieceIndex(color, type)];
+    }
+
+    public long pieces(Piece.Color color) {
+        return colorBitboards[color.ordinal()];
+    }
+
+    public long occupied() {
+        return occupied;
+    }
+
+    /**
+     * Places a piece on a square, replacing whatever stood there
+     */
+    public void setPiece(int square, Piece piece) {
+        removePiece(square);
+        if (piece == null) {
+            return;
+        }
+        long b = bit(square);
+        int color = piece.getColor().ordinal();
+        int index = pieceIndex(piece.getColor(), piece.getType());
+        pieceBitboards[index] |= b;
+        colorBitboards[color] |= b;
+        occupied |= b;
+        squares[square] = piece;
+        key ^= Zobrist.piece(index, square);
+        if (piece.getType() == Piece.Type.PAWN) {
+            pawnKey ^= Zobrist.piece(index, square);
+        }
+        materialKey += Material.unit(index);
+        middlegameScore += PieceSquareTables.middlegame(index, square);
+        endgameScore += PieceSquareTables.endgame(index, square);
+
+        pieceListIndex[square] = pieceCounts[color];
+        pieceLists[color][pieceCounts[color]++] = square;
+        if (piece.getType() == Piece.Type.KING) {
+            kingSquares[color] = square;
+        }
+        if (attackMap != null) {
+            attackMap.piecePlaced(this, square, piece);
+        }
+    }
+
+    public void setPiece(int row, int col, Piece piece) {
+        setPiece(square(row, col), piece);
+    }
+
+    /**
+     * Removes the piece on a square and returns it (null if the square was empty)
+     */
+    public Piece removePiece(int square) {
+        Piece piece = squares[square];
+        if (piece == null) {
+            return null;
+        }
+        long b = ~bit(square);
+        int color = piece.getColor().ordinal();
+        int index = pieceIndex(piece.getColor(), piece.getType());
+        pieceBitboards[index] &= b;
+        colorBitboards[color] &= b;
+        occupied &= b;
+        squares[square] = null;
+        key ^= Zobrist.piece(index, square);
+        if (piece.getType() == Piece.Type.PAWN) {
+            pawnKey ^= Zobrist.piece(index, square);
+        }
+        materialKey -= Material.unit(index);
+        middlegameScore -= PieceSquareTables.middlegame(index, square);
+        endgameScore -= PieceSquareTables.endgame(index, square);
+
+        // Fill the hole in the piece list with the last entry
+        int slot = pieceListIndex[square];
+        int last = pieceLists[color][--pieceCounts[color]];
+        pieceLists[color][slot] = last;
+        pieceListIndex[last] = slot;
+        if (piece.getType() == Piece.Type.KING) {
+            long kings = pieceBitboards[index];
+            kingSquares[color] = kings == 0 ? NO_SQUARE : Long.numberOfTrailingZeros(kings);
+        }
+        if (attackMap != null) {
+            attackMap.pieceRemoved(this, square, piece);
+        }
+        return piece;
+    }
+
+    public Piece removePiece(int row, int col) {
+        return removePiece(square(row, col));
+    }
+
+    /**
+     * Moves the piece on one square to another, returning whatever was captured there
+     */
+    public Piece movePiece(int from, int to) {
+        Piece piece = removePiece(from);
+        Piece captured = removePiece(to);
+        setPiece(to, piece);
+        return captured;
+    }
+
+    public int getCastlingRights() {
+        return castlingRights;
+    }
+
+    public void setCastlingRights(int castlingRights) {
+        key ^= Zobrist.castling(this.castlingRights) ^ Zobrist.castling(castlingRights);
+        this.castlingRights = castlingRights;
+    }
+
+    public boolean canCastle(int right) {
+        return (castlingRights & right) != 0;
+    }
+
+    /**
+     * Drops the castling rights lost by a move between two squares
+     * (a king or rook leaving its square, or a rook being captured)
+     */
+    public void updateCastlingRights(int from, int to) {
+        setCastlingRights(castlingRights & CASTLING_MASK[from] & CASTLING_MASK[to]);
+    }
+
+    /**
+     * The square a pawn skipped over with a double push on the last move, or NO_SQUARE
+     */
+    public int getEnPassantSquare() {
+        return enPassantSquare;
+    }
+
+    public void setEnPassantSquare(int enPassantSquare) {
+        this.enPassantSquare = enPassantSquare;
+        updateEnPassantKey();
+    }
+
+    public Piece.Color getSideToMove() {
+        return sideToMove;
+    }
+
+    public void setSideToMove(Piece.Color sideToMove) {
+        if (sideToMove != this.sideToMove) {
+            key ^= Zobrist.BLACK_TO_MOVE;
+        }
+        this.sideToMove = sideToMove;
+        updateEnPassantKey();
+    }
+
+    /**
+     * 64-bit Zobrist hash of the pieces, side to move, castling rights and en passant file.
+     * Equal positions have equal keys; it is kept up to date as pieces move, so reading it is free.
+     */
+    public long getKey() {
+        return key;
+    }
+
+    /**
+     * Zobrist hash of the pawns of both colors and nothing else, so positions with the
+     * same pawn structure share it. Kept up to date like getKey.
+     */
+    public long getPawnKey() {
+        return pawnKey;
+    }
+
+    /**
+     * Piece counts of both colors packed into one key; see Material for reading it.
+     * It is kept up to date as pieces are placed and removed.
+     */
+    public long getMaterialKey() {
+        return materialKey;
+    }
+
+    /**
+     * Middlegame piece-square score of the whole board in centipawns, material
+     * included, from White's point of view. It is kept up to date as pieces are
+     * placed and removed.
+     */
+    public int getMiddlegameScore() {
+        return middlegameScore;
+    }
+
+    /**
+     * Endgame piece-square score of the whole board, kept like getMiddlegameScore
+     */
+    public int getEndgameScore() {
+        return endgameScore;
+    }
+
+    /**
+     * Number of pieces of a color and type on the board
+     */
+    public int count(Piece.Color color, Piece.Type type) {
+        return Material.count(materialKey, color, type);
+    }
+
+    // Swaps the en passant term in the key for one matching the current state
+    private void updateEnPassantKey() {
+        key ^= enPassantKey;
+        enPassantKey = Zobrist.enPassant(this);
+        key ^= enPassantKey;
+    }
+
+    public int getHalfMoveClock() {
+        return halfMoveClock;
+    }
+
+    public void setHalfMoveClock(int halfMoveClock) {
+        this.halfMoveClock = halfMoveClock;
+    }
+
+    public int getFullMoveNumber() {
+        return fullMoveNumber;
+    }
+
+    public void setFullMoveNumber(int fullMoveNumber) {
+        this.fullMoveNumber = fullMoveNumber;
+    }
+
+    /**
+     * Number of moves made that can still be unmade
+     */
+    public int getPly() {
+        return ply;
+    }
+
+    /**
+     * Counts how many times the current position occurred earlier in the game,
+     * including positions from before a copy was taken. Only positions since the
+     * last capture or pawn move are compared, since no position before an
+     * irreversible move can come back, and only every other ply, since the same
+     * side must be to move.
+     */
+    public int repetitionCount() {
+        int window = Math.min(halfMoveClock, ply + priorCount);
+        int count = 0;
+        // A position can first recur four plies later, after both sides move away and back
+        for (int back = 4; back <= window; back += 2) {
+            if (earlierKey(back) == key) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // Key of the position the given number of plies before this one, within the known history
+    private long earlierKey(int back) {
+        int index = ply - back;
+        return index >= 0 ? undoKeys[index] : priorKeys[priorCount + index];
+    }
+
+    /**
+     * The move unmakeMove would revert, or Move.NONE if there is none
+     */
+    public int lastMove() {
+        return ply == 0 ? Move.NONE : undoMoves[ply - 1];
+    }
+
+    /**
+     * The piece the last move made captured, or null if it captured nothing or there is none
+     */
+    public Piece lastCaptured() {
+        return ply == 0 || undoCaptures[ply - 1] < 0 ? null : Piece.fromIndex(undoCaptures[ply - 1]);
+    }
+
+    /**
+     * Applies a legal move for the side to move and records how to revert it
+     */
+    public void makeMove(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int flags = Move.flags(move);
+        Piece piece = squares[from];
+        Piece.Color us = piece.getColor();
+
+        if (ply == undoMoves.length) {
+            int capacity = ply * 2;
+            undoMoves = Arrays.copyOf(undoMoves, capacity);
+            undoStates = Arrays.copyOf(undoStates, capacity);
+            undoKeys = Arrays.copyOf(undoKeys, capacity);
+            undoCaptures = Arrays.copyOf(undoCaptures, capacity);
+        }
+        undoMoves[ply] = move;
+        undoStates[ply] = castlingRights | ((enPassantSquare + 1) << 4) | (halfMoveClock << 11);
+        undoKeys[ply] = key;
+
+        Piece captured;
+        if (flags == Move.EN_PASSANT) {
+            captured = removePiece(enPassantVictim(to, us));
+            movePiece(from, to);
+        } else {
+            captured = movePiece(from, to);
+        }
+        undoCaptures[ply] = (byte) (captured == null ? -1 : pieceIndex(captured.getColor(), captured.getType()));
+        ply++;
+
+        if (flags == Move.KING_CASTLE) {
+            movePiece(from + 3, from + 1);
+        } else if (flags == Move.QUEEN_CASTLE) {
+            movePiece(from - 4, from - 1);
+        } else if ((flags & Move.PROMOTION) != 0) {
+            setPiece(to, Piece.of(us, Move.promotionType(move)));
+        }
+
+        updateCastlingRights(from, to);
+        halfMoveClock = piece.getType() == Piece.Type.PAWN || captured != null ? 0 : halfMoveClock + 1;
+        if (us == Piece.Color.BLACK) {
+            fullMoveNumber++;
+        }
+        sideToMove = us == Piece.Color.WHITE ? Piece.Color.BLACK : Piece.Color.WHITE;
+        key ^= Zobrist.BLACK_TO_MOVE;
+        if (flags == Move.DOUBLE_PAWN_PUSH) {
+            setEnPassantSquare((from + to) >>> 1);
+        } else if (enPassantSquare != NO_SQUARE) {
+            setEnPassantSquare(NO_SQUARE);
+        }
+    }
+
+    /**
+     * Reverts the last move made with makeMove
+     */
+    public void unmakeMove() {
+        ply--;
+        int move = undoMoves[ply];
+        int state = undoStates[ply];
+        int capturedIndex = undoCaptures[ply];
+
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int flags = Move.flags(move);
+        Piece.Color us = sideToMove == Piece.Color.WHITE ? Piece.Color.BLACK : Piece.Color.WHITE;
+
+        if (flags == Move.KING_CASTLE) {
+            movePiece(from + 1, from + 3);
+        } else if (flags == Move.QUEEN_CASTLE) {
+            movePiece(from - 1, from - 4);
+        }
+        // A promoted piece goes back as the pawn it was
+        Piece piece = (flags & Move.PROMOTION) != 0 ? Piece.of(us, Piece.Type.PAWN) : squares[to];
+        removePiece(to);
+        setPiece(from, piece);
+        if (capturedIndex >= 0) {
+            setPiece(flags == Move.EN_PASSANT ? enPassantVictim(to, us) : to, Piece.fromIndex(capturedIndex));
+        }
+
+        castlingRights = state & 15;
+        enPassantSquare = ((state >>> 4) & 127) - 1;
+        halfMoveClock = state >>> 11;
+        if (us == Piece.Color.BLACK) {
+            fullMoveNumber--;
+        }
+        sideToMove = us;
+        // The pieces above toggled the key as they moved back; the saved key is simply restored
+        key = undoKeys[ply];
+        enPassantKey = Zobrist.enPassant(this);
+    }
+
+    /**
+     * Square of the pawn taken by an en passant capture landing on the given square
+     */
+    private static int enPassantVictim(int to, Piece.Color capturer) {
+        return capturer == Piece.Color.WHITE ? to + 8 : to - 8;
+    }
+
+    /**
+     * Starts keeping an attack map for this position and returns it. From then on
+     * every piece placed or removed updates the map, which makes moves a little
+     * dearer, so searches that only need move generation leave it off.
+     */
+    public AttackMap trackAttacks() {
+        if (attackMap == null) {
+            attackMap = new AttackMap();
+            attackMap.rebuild(this);
+        }
+        return attackMap;
+    }
+
+    /**
+     * The attack map started by trackAttacks, or null if attacks are not tracked
+     */
+    public AttackMap getAttackMap() {
+        return attackMap;
+    }
+
+    /**
+     * The square of the king of the given color, or NO_SQUARE if it has none
+     */
+    public int kingSquare(Piece.Color color) {
+        return kingSquares[color.ordinal()];
+    }
+
+    /**
+     * Number of pieces (king included) the given color has on the board
+     */
+    public int pieceCount(Piece.Color color) {
+        return pieceCounts[color.ordinal()];
+    }
+
+    /**
+     * Square of one of the given color's pieces, for index 0 to pieceCount - 1.
+     * The order is arbitrary and changes as pieces move.
+     */
+    public int pieceSquare(Piece.Color color, int index) {
+        return pieceLists[color.ordinal()][index];
+    }
+
+    /**
+     * Creates an 8x8 array view of the position for code that still works on Piece[][]
+     */
+    public Piece[][] toBoard() {
+        Piece[][] board = new Piece[8][8];
+        for (int c = 0; c < 2; c++) {
+            for (int i = 0; i < pieceCounts[c]; i++) {
+                int sq = pieceLists[c][i];
+                board[row(sq)][col(sq)] = squares[sq];
+            }
+        }
+        return board;
+    }
+}
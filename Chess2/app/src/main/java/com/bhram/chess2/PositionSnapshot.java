@@ -0,0 +1,44 @@
+package com.bhram.chess2;
+
+/**
+ * PositionSnapshot is a compact, immutable copy of a position: the twelve
+ * piece bitboards plus the side to move, castling rights, en passant square
+ * and move counters, about 150 bytes in all. It carries no undo stack or
+ * derived tables; Position.restore rebuilds those from the bitboards.
+ */
+public final class PositionSnapshot {
+
+    private final long[] pieceBitboards;
+    private final int castlingRights;
+    private final int enPassantSquare;
+    private final Piece.Color sideToMove;
+    private final int halfMoveClock;
+    private final int fullMoveNumber;
+
+    PositionSnapshot(long[] pieceBitboards, int castlingRights, int enPassantSquare,
+                     Piece.Color sideToMove, int halfMoveClock, int fullMoveNumber) {
+        this.pieceBitboards = pieceBitboards;
+        this.castlingRights = castlingRights;
+        this.enPassantSquare = enPassantSquare;
+        this.sideToMove = sideToMove;
+        this.halfMoveClock = halfMoveClock;
+        this.fullMoveNumber = fullMoveNumber;
+    }
+
+    /**
+     * Squares of the pieces with the given index (see Position.pieceIndex), as a bitboard
+     */
+    long pieces(int pieceIndex) {
+        return pieceBitboards[pieceIndex];
+    }
+
+    public int getCastlingRights() { return castlingRights; }
+
+    public int getEnPassantSquare() { return enPassantSquare; }
+
+    public Piece.Color getSideToMove() { return sideToMove; }
+
+    public int getHalfMoveClock() { return halfMoveClock; }
+
+    public int getFullMoveNumber() { return fullMoveNumber; }
+}
@@ -0,0 +1,192 @@
+package com.bhram.chess2;
+
+/**
+ * StaticExchange works out what a capture wins or loses once every piece
+ * that can join in has recaptured on the target square, cheapest attacker
+ * first, without making any moves. It works on bitboards alone: the
+ * attackers of the square are looked up once, and each time a piece is
+ * taken off to recapture, sliders lined up behind it are added.
+ *
+ * Pins are not considered, and either side may stop recapturing whenever
+ * continuing would lose material. The result is in centipawns for the side
+ * making the capture.
+ */
+public final class StaticExchange {
+
+    /**
+     * Exchange value of each piece type, in Piece.Type order
+     */
+    private static final int[] VALUES = {100, 500, 320, 330, 900, 20000};
+
+    // Recapture order: cheapest attacker first
+    private static final Piece.Type[] CHEAPEST_FIRST = {
+        Piece.Type.PAWN, Piece.Type.KNIGHT, Piece.Type.BISHOP, Piece.Type.ROOK, Piece.Type.QUEEN, Piece.Type.KING
+    };
+
+    private StaticExchange() {
+    }
+
+    public static int value(Piece.Type type) {
+        return VALUES[type.ordinal()];
+    }
+
+    /**
+     * Material the side to move gains (or loses, if negative) by playing a legal move
+     * and letting both sides recapture on its target square for as long as it pays
+     */
+    public static int evaluate(Position position, int move) {
+        if (Move.isCastling(move)) {
+            return 0;
+        }
+        int from = Move.from(move);
+        int to = Move.to(move);
+        Piece mover = position.getPiece(from);
+        long occupied = position.occupied() & ~Position.bit(from);
+
+        int[] gain = new int[32];
+        if (Move.isEnPassant(move)) {
+            gain[0] = VALUES[Piece.Type.PAWN.ordinal()];
+            occupied &= ~Position.bit(Position.square(Position.row(from), Position.col(to)));
+        } else {
+            Piece victim = position.getPiece(to);
+            gain[0] = victim == null ? 0 : VALUES[victim.getType().ordinal()];
+        }
+        // The piece now standing on the square, which the next capture would win
+        int onSquare = VALUES[mover.getType().ordinal()];
+        if (Move.isPromotion(move)) {
+            int promoted = VALUES[Move.promotionType(move).ordinal()];
+            gain[0] += promoted - VALUES[Piece.Type.PAWN.ordinal()];
+            onSquare = promoted;
+        }
+
+        long attackers = ChessRules.attackersTo(position, to, occupied) & occupied;
+        Piece.Color side = mover.getColor() == Piece.Color.WHITE ? Piece.Color.BLACK : Piece.Color.WHITE;
+        int depth = 0;
+        while (true) {
+            long ours = attackers & position.pieces(side);
+            if (ours == 0) {
+                break;
+            }
+            Piece.Type type = cheapest(position, side, ours);
+            // The king may only take last, when nothing can take it back
+            if (type == Piece.Type.KING && (attackers & ~ours) != 0) {
+                break;
+            }
+            depth++;
+            gain[depth] = onSquare - gain[depth - 1];
+            onSquare = VALUES[type.ordinal()];
+            occupied &= ~Long.lowestOneBit(ours & position.pieces(side, type));
+            attackers = xrayAttackers(position, to, occupied, attackers);
+            side = side == Piece.Color.WHITE ? Piece.Color.BLACK : Piece.Color.WHITE;
+        }
+        while (depth > 0) {
+            depth--;
+            gain[depth] = -Math.max(-gain[depth], gain[depth + 1]);
+        }
+        return gain[0];
+    }
+
+    /**
+     * Checks if the side to move's move wins at least the given amount of material.
+     * This answers the same question as comparing evaluate with the threshold, but
+     * stops as soon as the answer is known and allocates nothing, for use inside a search.
+     */
+    public static boolean isAtLeast(Position position, int move, int threshold) {
+        if (Move.isCastling(move)) {
+            return threshold <= 0;
+        }
+        int from = Move.from(move);
+        int to = Move.to(move);
+        Piece mover = position.getPiece(from);
+        long occupied = position.occupied() & ~Position.bit(from);
+
+        int captured;
+        if (Move.isEnPassant(move)) {
+            captured = VALUES[Piece.Type.PAWN.ordinal()];
+            occupied &= ~Position.bit(Position.square(Position.row(from), Position.col(to)));
+        } else {
+            Piece victim = position.getPiece(to);
+            captured = victim == null ? 0 : VALUES[victim.getType().ordinal()];
+        }
+        int onSquare = VALUES[mover.getType().ordinal()];
+        if (Move.isPromotion(move)) {
+            int promoted = VALUES[Move.promotionType(move).ordinal()];
+            captured += promoted - VALUES[Piece.Type.PAWN.ordinal()];
+            onSquare = promoted;
+        }
+
+        // Balance relative to the threshold, from the point of view of the side about to capture
+        int swap = captured - threshold;
+        if (swap < 0) {
+            return false;
+        }
+        swap = onSquare - swap;
+        if (swap <= 0) {
+            return true;
+        }
+
+        long attackers = ChessRules.attackersTo(position, to, occupied);
+        Piece.Color side = mover.getColor();
+        // 1 while the capturing side is ahead of the threshold, flipping with each recapture
+        int result = 1;
+        while (true) {
+            side = side == Piece.Color.WHITE ? Piece.Color.BLACK : Piece.Color.WHITE;
+            attackers &= occupied;
+            long ours = attackers & position.pieces(side);
+            if (ours == 0) {
+                break;
+            }
+            result ^= 1;
+            Piece.Type type = cheapest(position, side, ours);
+            if (type == Piece.Type.KING) {
+                // Taking with the king only stands if nothing can take it back
+                return ((attackers & ~position.pieces(side)) != 0 ? result ^ 1 : result) != 0;
+            }
+            swap = VALUES[type.ordinal()] - swap;
+            if (swap < result) {
+                break;
+            }
+            occupied &= ~Long.lowestOneBit(ours & position.pieces(side, type));
+            attackers = xrayAttackers(position, to, occupied, attackers);
+        }
+        return result != 0;
+    }
+
+    /**
+     * Checks if the piece on a square can be won by its opponent: some capture of it comes
+     * out ahead even after every recapture. The opponent does not need to be the side to move.
+     */
+    public static boolean isHanging(Position position, int square) {
+        Piece piece = position.getPiece(square);
+        if (piece == null) {
+            return false;
+        }
+        Piece.Color them = piece.getColor() == Piece.Color.WHITE ? Piece.Color.BLACK : Piece.Color.WHITE;
+        long attackers = ChessRules.attackersTo(position, square, position.occupied()) & position.pieces(them);
+        if (attackers == 0) {
+            return false;
+        }
+        Piece.Type type = cheapest(position, them, attackers);
+        int from = Long.numberOfTrailingZeros(attackers & position.pieces(them, type));
+        // A capture by the cheapest attacker is the best way to start an exchange
+        return isAtLeast(position, Move.encode(from, square, Move.CAPTURE), 1);
+    }
+
+    private static Piece.Type cheapest(Position position, Piece.Color side, long attackers) {
+        for (Piece.Type type : CHEAPEST_FIRST) {
+            if ((attackers & position.pieces(side, type)) != 0) {
+                return type;
+            }
+        }
+        return null;
+    }
+
+    // Adds sliders uncovered behind the pieces that have left the square's lines
+    private static long xrayAttackers(Position position, int square, long occupied, long attackers) {
+        long queens = position.pieces(Piece.Color.WHITE, Piece.Type.QUEEN) | position.pieces(Piece.Color.BLACK, Piece.Type.QUEEN);
+        long diagonal = position.pieces(Piece.Color.WHITE, Piece.Type.BISHOP) | position.pieces(Piece.Color.BLACK, Piece.Type.BISHOP) | queens;
+        long straight = position.pieces(Piece.Color.WHITE, Piece.Type.ROOK) | position.pieces(Piece.Color.BLACK, Piece.Type.ROOK) | queens;
+        attackers |= (Attacks.bishop(square, occupied) & diagonal) | (Attacks.rook(square, occupied) & straight);
+        return attackers & occupied;
+    }
+}
@@ -0,0 +1,114 @@
+package com.bhram.chess2;
+
+/**
+ * Zobrist holds the random numbers behind a position's 64-bit hash key.
+ * The key is the XOR of one number per piece on its square, one for the
+ * set of castling rights, one for the en passant file and one for Black
+ * to move. XOR is its own inverse, so Position keeps the key up to date by
+ * toggling just the terms a move changes instead of rehashing the board.
+ *
+ * The en passant file only counts when a pawn of the side to move could
+ * actually capture there; otherwise the position is the same for
+ * repetition purposes as one without a double pawn push.
+ */
+public final class Zobrist {
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private static final long[] PIECE_SQUARE = new long[12 * 64];
+    private static final long[] CASTLING = new long[16];
+    private static final long[] EN_PASSANT_FILE = new long[8];
+    public static final long BLACK_TO_MOVE;
+
+    static {
+        // Fixed seed so keys are the same on every run and device
+        long seed = 0x2D358DCCAA6C78A5L;
+        for (int i = 0; i < PIECE_SQUARE.length; i++) {
+            PIECE_SQUARE[i] = mix(seed += GOLDEN_GAMMA);
+        }
+        // No rights hashes to zero, so a cleared position has key 0
+        for (int rights = 1; rights < CASTLING.length; rights++) {
+            CASTLING[rights] = mix(seed += GOLDEN_GAMMA);
+        }
+        for (int file = 0; file < EN_PASSANT_FILE.length; file++) {
+            EN_PASSANT_FILE[file] = mix(seed += GOLDEN_GAMMA);
+        }
+        BLACK_TO_MOVE = mix(seed + GOLDEN_GAMMA);
+    }
+
+    private Zobrist() {
+    }
+
+    /**
+     * Key term for a piece (see Position.pieceIndex) standing on a square
+     */
+    public static long piece(int pieceIndex, int square) {
+        return PIECE_SQUARE[(pieceIndex << 6) | square];
+    }
+
+    /**
+     * Key term for a set of castling rights bits
+     */
+    public static long castling(int rights) {
+        return CASTLING[rights];
+    }
+
+    /**
+     * Key term for the position's en passant square, or 0 if no pawn can capture there
+     */
+    public static long enPassant(Position position) {
+        int square = position.getEnPassantSquare();
+        if (square == Position.NO_SQUARE) {
+            return 0L;
+        }
+        Piece.Color side = position.getSideToMove();
+        Piece.Color victim = side == Piece.Color.WHITE ? Piece.Color.BLACK : Piece.Color.WHITE;
+        // Our pawns that attack the square are the ones an enemy pawn there would attack
+        if ((Attacks.pawn(victim, square) & position.pieces(side, Piece.Type.PAWN)) == 0) {
+            return 0L;
+        }
+        return EN_PASSANT_FILE[Position.col(square)];
+    }
+
+    /**
+     * Computes a position's key from scratch
+     */
+    public static long compute(Position position) {
+        long key = 0L;
+        for (int sq = 0; sq < 64; sq++) {
+            Piece piece = position.getPiece(sq);
+            if (piece != null) {
+                key ^= piece(Position.pieceIndex(piece.getColor(), piece.getType()), sq);
+            }
+        }
+        key ^= castling(position.getCastlingRights());
+        key ^= enPassant(position);
+        if (position.getSideToMove() == Piece.Color.BLACK) {
+            key ^= BLACK_TO_MOVE;
+        }
+        return key;
+    }
+
+    /**
+     * Computes a position's pawn key from scratch
+     */
+    public static long computePawns(Position position) {
+        long key = 0L;
+        for (Piece.Color color : Piece.Color.values()) {
+            int index = Position.pieceIndex(color, Piece.Type.PAWN);
+            long pawns = position.pieces(color, Piece.Type.PAWN);
+            while (pawns != 0) {
+                key ^= piece(index, Long.numberOfTrailingZeros(pawns));
+                pawns &= pawns - 1;
+            }
+        }
+        return key;
+    }
+
+    // SplitMix64 finalizer, turning a counter into well-spread random bits
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
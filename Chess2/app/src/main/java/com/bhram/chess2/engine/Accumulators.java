@@ -0,0 +1,163 @@
+package com.bhram.chess2.engine;
+
+import com.bhram.chess2.Move;
+import com.bhram.chess2.Piece;
+import com.bhram.chess2.Position;
+
+import java.util.Arrays;
+
+/**
+ * Accumulators keeps a network's first-layer sums for every ply of a
+ * search, one per side. Making a move derives the next ply's sums from the
+ * current ones by subtracting the weights of the pieces that left their
+ * squares and adding those of the pieces that arrived, which is a handful
+ * of passes over the hidden layer instead of one per piece. Unmaking a
+ * move just steps back to the previous ply's sums, which are untouched.
+ *
+ * A side whose own king moved sees every input change, so its sums are
+ * rebuilt from the board instead.
+ *
+ * All loops are plain scalar loops over primitive arrays; the JIT is left
+ * to vectorise them where it can. Nothing is allocated after construction.
+ */
+final class Accumulators {
+
+    private final Network network;
+    // [ply][side][hidden]
+    private final short[][][] sums;
+    private int ply;
+
+    Accumulators(Network network) {
+        this.network = network;
+        sums = new short[Search.MAX_PLY + 1][2][network.hiddenSize];
+    }
+
+    /**
+     * Builds both sides' sums for the search's root position from scratch
+     */
+    void reset(Position position) {
+        ply = 0;
+        rebuild(position, Piece.Color.WHITE.ordinal(), sums[0][0]);
+        rebuild(position, Piece.Color.BLACK.ordinal(), sums[0][1]);
+    }
+
+    /**
+     * Derives the sums after the move the position has just made
+     */
+    void push(Position position) {
+        int move = position.lastMove();
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int flags = Move.flags(move);
+        Piece moved = position.getPiece(to);
+        int mover = position.getSideToMove() == Piece.Color.WHITE ? Piece.Color.BLACK.ordinal() : Piece.Color.WHITE.ordinal();
+        // The piece as it stood on its origin square, a pawn if it has just promoted
+        Piece before = Move.isPromotion(move) ? Piece.of(moved.getColor(), Piece.Type.PAWN) : moved;
+        Piece captured = position.lastCaptured();
+        int capturedSquare = flags == Move.EN_PASSANT ? (mover == Piece.Color.WHITE.ordinal() ? to + 8 : to - 8) : to;
+
+        ply++;
+        for (int side = 0; side < 2; side++) {
+            short[] next = sums[ply][side];
+            if (side == mover && moved.getType() == Piece.Type.KING) {
+                rebuild(position, side, next);
+                continue;
+            }
+            System.arraycopy(sums[ply - 1][side], 0, next, 0, next.length);
+            int king = position.kingSquare(side == 0 ? Piece.Color.WHITE : Piece.Color.BLACK);
+            if (moved.getType() == Piece.Type.KING) {
+                // Only the rook of a castling move is an input
+                if (flags == Move.KING_CASTLE) {
+                    move(next, side, king, position.getPiece(from + 1), from + 3, from + 1);
+                } else if (flags == Move.QUEEN_CASTLE) {
+                    move(next, side, king, position.getPiece(from - 1), from - 4, from - 1);
+                }
+            } else {
+                subtract(next, network.inputOffset(side, king, before, from));
+                add(next, network.inputOffset(side, king, moved, to));
+            }
+            if (captured != null) {
+                subtract(next, network.inputOffset(side, king, captured, capturedSquare));
+            }
+        }
+    }
+
+    /**
+     * Steps back to the sums before the last pushed move
+     */
+    void pop() {
+        ply--;
+    }
+
+    /**
+     * Runs the rest of the network on the current sums, giving centipawns from the
+     * side to move's point of view
+     */
+    int evaluate(Position position) {
+        if (Evaluation.isVerifying()) {
+            verify(position);
+        }
+        int us = position.getSideToMove().ordinal();
+        int hidden = network.hiddenSize;
+        byte[] weights = network.outputWeights;
+        short[] ours = sums[ply][us];
+        short[] theirs = sums[ply][us ^ 1];
+        int output = 0;
+        for (int i = 0; i < hidden; i++) {
+            output += clip(ours[i]) * weights[i];
+        }
+        for (int i = 0; i < hidden; i++) {
+            output += clip(theirs[i]) * weights[hidden + i];
+        }
+        long scaled = (long) (output + network.outputBias) * Network.OUTPUT_SCALE;
+        return (int) (scaled / (Network.ACTIVATION_MAX * Network.OUTPUT_QUANTIZATION));
+    }
+
+    private static int clip(short value) {
+        return Math.min(Math.max(value, 0), Network.ACTIVATION_MAX);
+    }
+
+    private void move(short[] sum, int side, int king, Piece piece, int from, int to) {
+        subtract(sum, network.inputOffset(side, king, piece, from));
+        add(sum, network.inputOffset(side, king, piece, to));
+    }
+
+    private void add(short[] sum, int offset) {
+        short[] weights = network.inputWeights;
+        for (int i = 0; i < sum.length; i++) {
+            sum[i] += weights[offset + i];
+        }
+    }
+
+    private void subtract(short[] sum, int offset) {
+        short[] weights = network.inputWeights;
+        for (int i = 0; i < sum.length; i++) {
+            sum[i] -= weights[offset + i];
+        }
+    }
+
+    private void rebuild(Position position, int side, short[] sum) {
+        System.arraycopy(network.hiddenBiases, 0, sum, 0, sum.length);
+        int king = position.kingSquare(side == 0 ? Piece.Color.WHITE : Piece.Color.BLACK);
+        for (Piece.Color color : Piece.Color.values()) {
+            for (int i = 0; i < position.pieceCount(color); i++) {
+                int square = position.pieceSquare(color, i);
+                Piece piece = position.getPiece(square);
+                if (piece.getType() != Piece.Type.KING) {
+                    add(sum, network.inputOffset(side, king, piece, square));
+                }
+            }
+        }
+    }
+
+    // Checks the incremental sums against a rebuild, in Evaluation's verifying mode
+    private void verify(Position position) {
+        short[] expected = new short[network.hiddenSize];
+        for (int side = 0; side < 2; side++) {
+            rebuild(position, side, expected);
+            if (!Arrays.equals(expected, sums[ply][side])) {
+                throw new IllegalStateException("Incremental network sums differ from a rebuild in " + position.toFen());
+            }
+        }
+    }
+}
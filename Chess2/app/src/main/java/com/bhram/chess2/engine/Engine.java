@@ -0,0 +1,204 @@
+package com.bhram.chess2.engine;
+
+import com.bhram.chess2.ChessGame;
+import com.bhram.chess2.Position;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Engine is the computer player: given a position and some limits it finds
+ * the best move it can. A search runs on the calling thread; stop may be
+ * called from any other thread to end it early, in which case the result
+ * of the deepest fully searched iteration is returned.
+ *
+ * With more than one thread the search is parallelised the "lazy SMP" way:
+ * helper threads search the same root alongside the calling thread, every
+ * other one an iteration deeper, and the only thing they share is the
+ * lock-free transposition table. What one thread stores the others find,
+ * so together they reach a given depth sooner. Each thread counts its own
+ * nodes and limits are enforced by the calling thread, which stops the
+ * helpers when it finishes.
+ *
+ * Positions are scored by Evaluation unless a Network has been set, in
+ * which case every thread keeps its own incrementally updated copy of the
+ * network's first layer.
+ *
+ * The engine searches its own copy of the position, so the game it was
+ * asked about is never touched. The copy remembers the game's positions
+ * since the last capture or pawn move, so the search treats returning to
+ * one of them as a draw, just as it does repetitions within the search.
+ * Its transposition table is kept between searches, so analysing a game
+ * move by move reuses earlier work.
+ */
+public class Engine {
+
+    /**
+     * Transposition table size used unless another is given, small enough for a phone
+     */
+    public static final int DEFAULT_HASH_MEGABYTES = 16;
+
+    private final TranspositionTable table;
+    private Network network;
+    private Search[] searches;
+    private ExecutorService helpers;
+    private volatile boolean stopped;
+
+    public Engine() {
+        this(DEFAULT_HASH_MEGABYTES, 1);
+    }
+
+    public Engine(int hashMegabytes) {
+        this(hashMegabytes, 1);
+    }
+
+    public Engine(int hashMegabytes, int threads) {
+        table = new TranspositionTable(hashMegabytes);
+        setThreads(threads);
+    }
+
+    public TranspositionTable getTranspositionTable() {
+        return table;
+    }
+
+    public int getThreads() {
+        return searches.length;
+    }
+
+    /**
+     * Sets how many threads search, the calling thread included
+     */
+    public synchronized void setThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Thread count must be positive: " + threads);
+        }
+        if (helpers != null) {
+            helpers.shutdown();
+            helpers = null;
+        }
+        searches = new Search[threads];
+        for (int i = 0; i < threads; i++) {
+            searches[i] = new Search(this, table);
+            searches[i].setNetwork(network);
+        }
+        if (threads > 1) {
+            helpers = Executors.newFixedThreadPool(threads - 1, runnable -> {
+                Thread thread = new Thread(runnable, "engine-helper");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    public synchronized Network getNetwork() {
+        return network;
+    }
+
+    /**
+     * Evaluates positions with a neural network instead of the hand-written evaluation,
+     * or goes back to the hand-written one if network is null
+     */
+    public synchronized void setNetwork(Network network) {
+        this.network = network;
+        for (Search search : searches) {
+            search.setNetwork(network);
+        }
+    }
+
+    /**
+     * Forgets everything learned in earlier searches, e.g. before starting a new game
+     */
+    public synchronized void clear() {
+        table.clear();
+        for (Search search : searches) {
+            search.getPawnTable().clear();
+        }
+    }
+
+    /**
+     * Pawn structure cache probes made by all search threads since they were last cleared
+     */
+    public synchronized long getPawnTableProbes() {
+        long probes = 0;
+        for (Search search : searches) {
+            probes += search.getPawnTable().getProbes();
+        }
+        return probes;
+    }
+
+    /**
+     * Pawn structure cache probes that found their entry, over all search threads
+     */
+    public synchronized long getPawnTableHits() {
+        long hits = 0;
+        for (Search search : searches) {
+            hits += search.getPawnTable().getHits();
+        }
+        return hits;
+    }
+
+    /**
+     * Finds the best move for the side to move in the game's current position
+     */
+    public SearchResult search(ChessGame game, SearchLimits limits) {
+        return search(game.copyPosition(), limits);
+    }
+
+    /**
+     * Finds the best move for the side to move. The result's node count and speed
+     * cover all threads.
+     */
+    public synchronized SearchResult search(Position position, SearchLimits limits) {
+        stopped = false;
+        table.newSearch();
+        long start = System.nanoTime();
+
+        Future<?>[] running = new Future<?>[searches.length - 1];
+        SearchLimits helperLimits = SearchLimits.depth(limits.getDepth());
+        for (int i = 1; i < searches.length; i++) {
+            Search helper = searches[i];
+            int depthOffset = i % 2;
+            running[i - 1] = helpers.submit(() -> helper.run(position, helperLimits, depthOffset));
+        }
+
+        SearchResult result = searches[0].run(position, limits, 0);
+        stopped = true;
+        long nodes = searches[0].getNodes();
+        for (int i = 1; i < searches.length; i++) {
+            awaitHelper(running[i - 1]);
+            nodes += searches[i].getNodes();
+        }
+        return new SearchResult(result.getBestMove(), result.getScore(), result.getDepth(),
+                result.getPrincipalVariation(), nodes, System.nanoTime() - start);
+    }
+
+    private static void awaitHelper(Future<?> helper) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                helper.get();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Helper search failed", e.getCause());
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Asks a running search to finish as soon as possible
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    boolean isStopped() {
+        return stopped;
+    }
+}
@@ -0,0 +1,103 @@
+package com.bhram.chess2.engine;
+
+import com.bhram.chess2.Material;
+import com.bhram.chess2.PieceSquareTables;
+import com.bhram.chess2.Piece;
+import com.bhram.chess2.Position;
+
+/**
+ * Evaluation scores a position in centipawns from the side to move's point
+ * of view. Its core is the position's middlegame and endgame piece-square
+ * scores, material included, which the position keeps up to date as moves
+ * are made and unmade. They are blended by the game phase read from the
+ * material key, so a full evaluation is a few reads and multiplications
+ * plus some cheap positional terms, with no scan of the board. Pawn
+ * structure terms come from a PawnTable when the caller has one, and are
+ * worked out from the pawn bitboards otherwise.
+ *
+ * In verifying mode every evaluation also sums the piece-square tables
+ * from scratch, and recomputes any cached pawn terms, and fails if the
+ * incremental or cached scores have drifted. It is meant for tests and
+ * debugging, as it makes evaluation a full board scan.
+ */
+public final class Evaluation {
+
+    private static final int BISHOP_PAIR_MIDDLEGAME = 30;
+    private static final int BISHOP_PAIR_ENDGAME = 50;
+    // Having the move is worth a little
+    private static final int TEMPO = 10;
+
+    private static volatile boolean verifying;
+
+    private Evaluation() {
+    }
+
+    public static boolean isVerifying() {
+        return verifying;
+    }
+
+    /**
+     * Turns checking the incremental piece-square scores against a full recompute on or off
+     */
+    public static void setVerifying(boolean verify) {
+        verifying = verify;
+    }
+
+    public static int evaluate(Position position) {
+        return evaluate(position, null);
+    }
+
+    /**
+     * Evaluates the position, reading pawn structure terms through the given cache if not null
+     */
+    public static int evaluate(Position position, PawnTable pawns) {
+        if (verifying) {
+            verify(position);
+        }
+        long materialKey = position.getMaterialKey();
+        int middlegame = position.getMiddlegameScore();
+        int endgame = position.getEndgameScore();
+
+        int bishopPairs = bishopPair(materialKey, Piece.Color.WHITE) - bishopPair(materialKey, Piece.Color.BLACK);
+        middlegame += bishopPairs * BISHOP_PAIR_MIDDLEGAME;
+        endgame += bishopPairs * BISHOP_PAIR_ENDGAME;
+
+        if (pawns != null) {
+            int entry = pawns.probe(position);
+            if (verifying) {
+                verify(position, pawns, entry);
+            }
+            middlegame += pawns.middlegame(entry) + pawns.shield(entry, position);
+            endgame += pawns.endgame(entry);
+        } else {
+            middlegame += PawnTable.structure(position, false) + PawnTable.shield(position);
+            endgame += PawnTable.structure(position, true);
+        }
+
+        int phase = Material.phase(materialKey);
+        int score = (middlegame * phase + endgame * (Material.MAX_PHASE - phase)) / Material.MAX_PHASE;
+        return (position.getSideToMove() == Piece.Color.WHITE ? score : -score) + TEMPO;
+    }
+
+    private static int bishopPair(long materialKey, Piece.Color color) {
+        return Material.count(materialKey, color, Piece.Type.BISHOP) >= 2 ? 1 : 0;
+    }
+
+    private static void verify(Position position) {
+        int middlegame = PieceSquareTables.middlegame(position);
+        int endgame = PieceSquareTables.endgame(position);
+        if (middlegame != position.getMiddlegameScore() || endgame != position.getEndgameScore()) {
+            throw new IllegalStateException("Incremental piece-square scores " + position.getMiddlegameScore()
+                    + "/" + position.getEndgameScore() + " differ from recomputed " + middlegame + "/" + endgame
+                    + " in " + position.toFen());
+        }
+    }
+
+    private static void verify(Position position, PawnTable pawns, int entry) {
+        if (pawns.middlegame(entry) != PawnTable.structure(position, false)
+                || pawns.endgame(entry) != PawnTable.structure(position, true)
+                || pawns.shield(entry, position) != PawnTable.shield(position)) {
+            throw new IllegalStateException("Cached pawn terms differ from recomputed ones in " + position.toFen());
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.bhram.chess2.engine;
+
+import com.bhram.chess2.Move;
+import com.bhram.chess2.MoveGenerator;
+import com.bhram.chess2.Piece;
+import com.bhram.chess2.Position;
+
+/**
+ * MoveOrdering decides the order a search tries the moves of a node in,
+ * since alpha-beta cuts off sooner the earlier it meets the best move.
+ * The hash (or principal variation) move comes first, then captures and
+ * queen promotions by most valuable victim, least valuable attacker, then
+ * the two killer moves that last caused a cutoff at the same ply, then the
+ * remaining quiet moves by their butterfly history score (how often each
+ * from/to pair has caused cutoffs for that side).
+ *
+ * Moves are scored once per node and picked lazily, best first, so a node
+ * that cuts off after one or two moves never sorts the rest. History is
+ * halved and killers cleared when a new search starts, so what was learned
+ * about the previous position still helps without dominating.
+ */
+final class MoveOrdering {
+
+    private static final int HASH_MOVE = 1 << 30;
+    private static final int CAPTURE = 1 << 28;
+    private static final int KILLER = 1 << 26;
+    // History scores stay within plus or minus this, below every killer
+    private static final int HISTORY_LIMIT = 1 << 14;
+
+    // Capture ordering value of each piece type, in Piece.Type order
+    private static final int[] ORDER_VALUES = {1, 4, 2, 3, 5, 6};
+
+    private final int[][] killers = new int[Search.MAX_PLY][2];
+    private final int[] history = new int[2 * 64 * 64];
+    private final int[][] scores = new int[Search.MAX_PLY][MoveGenerator.MAX_MOVES];
+
+    void newSearch() {
+        for (int i = 0; i < history.length; i++) {
+            history[i] /= 2;
+        }
+        for (int[] plyKillers : killers) {
+            plyKillers[0] = Move.NONE;
+            plyKillers[1] = Move.NONE;
+        }
+    }
+
+    /**
+     * Scores a node's moves ahead of picking them with next. Returns whether the
+     * first move to try was among them.
+     */
+    boolean score(Position position, int[] moves, int count, int ply, int firstMove) {
+        int[] plyScores = scores[ply];
+        int side = position.getSideToMove().ordinal();
+        int killer1 = killers[ply][0];
+        int killer2 = killers[ply][1];
+        boolean found = false;
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            if (move == firstMove) {
+                plyScores[i] = HASH_MOVE;
+                found = true;
+            } else if (Move.isCapture(move) || Move.promotionType(move) == Piece.Type.QUEEN) {
+                plyScores[i] = CAPTURE + mvvLva(position, move);
+            } else if (move == killer1) {
+                plyScores[i] = KILLER + 1;
+            } else if (move == killer2) {
+                plyScores[i] = KILLER;
+            } else if (Move.isPromotion(move)) {
+                // Under-promotions are almost never worth looking at early
+                plyScores[i] = -HISTORY_LIMIT - 1;
+            } else {
+                plyScores[i] = history[historyIndex(side, move)];
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Moves the best-scored move among those from index onwards to index and returns it
+     */
+    int next(int[] moves, int count, int index, int ply) {
+        int[] plyScores = scores[ply];
+        int best = index;
+        for (int i = index + 1; i < count; i++) {
+            if (plyScores[i] > plyScores[best]) {
+                best = i;
+            }
+        }
+        int move = moves[best];
+        if (best != index) {
+            moves[best] = moves[index];
+            moves[index] = move;
+            int score = plyScores[best];
+            plyScores[best] = plyScores[index];
+            plyScores[index] = score;
+        }
+        return move;
+    }
+
+    /**
+     * Learns from a quiet move that caused a beta cutoff: it becomes the ply's first
+     * killer and gains history, while the quiet moves tried before it lose some
+     */
+    void quietCutoff(Position position, int move, int ply, int depth, int[] triedQuiets, int triedCount) {
+        if (killers[ply][0] != move) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+        int side = position.getSideToMove().ordinal();
+        int bonus = Math.min(depth * depth, HISTORY_LIMIT);
+        updateHistory(historyIndex(side, move), bonus);
+        for (int i = 0; i < triedCount; i++) {
+            updateHistory(historyIndex(side, triedQuiets[i]), -bonus);
+        }
+    }
+
+    // Moves the score toward the limit by a share of the bonus that shrinks as it gets there
+    private void updateHistory(int index, int bonus) {
+        history[index] += bonus - history[index] * Math.abs(bonus) / HISTORY_LIMIT;
+    }
+
+    static boolean isQuiet(int move) {
+        return !Move.isCapture(move) && !Move.isPromotion(move);
+    }
+
+    /**
+     * Most valuable victim first, and among equal victims the least valuable attacker
+     */
+    private static int mvvLva(Position position, int move) {
+        int attacker = ORDER_VALUES[position.getPiece(Move.from(move)).getType().ordinal()];
+        int victim = 0;
+        if (Move.isEnPassant(move)) {
+            victim = ORDER_VALUES[Piece.Type.PAWN.ordinal()];
+        } else if (Move.isCapture(move)) {
+            victim = ORDER_VALUES[position.getPiece(Move.to(move)).getType().ordinal()];
+        }
+        if (Move.promotionType(move) == Piece.Type.QUEEN) {
+            victim += ORDER_VALUES[Piece.Type.QUEEN.ordinal()];
+        }
+        return victim * 8 - attacker;
+    }
+
+    private static int historyIndex(int side, int move) {
+        return (side << 12) | (Move.from(move) << 6) | Move.to(move);
+    }
+}
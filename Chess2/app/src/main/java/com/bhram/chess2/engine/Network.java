@@ -0,0 +1,138 @@
+package com.bhram.chess2.engine;
+
+import com.bhram.chess2.Piece;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Network holds the quantized weights of a small HalfKP-style evaluation
+ * network. Its inputs are every non-king piece on its square, seen from
+ * each side's own king square; the first layer sums the int16 weights of
+ * the active inputs into one accumulator per side, which Accumulators
+ * keeps up to date move by move. The two accumulators, side to move
+ * first, are clipped to 0..127 and fed to an int8 output layer.
+ *
+ * Each side sees the board as if it were White: Black's squares are
+ * mirrored top to bottom and the colors swapped, so one set of weights
+ * serves both and the evaluation is symmetric.
+ *
+ * File layout, all little-endian: the magic bytes "CNN1", the hidden size
+ * as an int32, the hidden biases and then the input weights as int16
+ * (input by input, hidden size values each), the output weights as int8
+ * (side to move's half first) and the output bias as an int32.
+ */
+public final class Network {
+
+    /** Number of inputs seen from one side: king square, piece color and type, piece square */
+    public static final int INPUTS = 64 * 10 * 64;
+
+    // Activations are clipped to 0..ACTIVATION_MAX, the quantization of 1.0 in the first layer
+    static final int ACTIVATION_MAX = 127;
+    // Quantization of 1.0 in the output weights
+    static final int OUTPUT_QUANTIZATION = 64;
+    // Centipawns per unit of network output
+    static final int OUTPUT_SCALE = 400;
+
+    private static final int MAGIC = 'C' | ('N' << 8) | ('N' << 16) | ('1' << 24);
+    // Largest hidden size whose input weights still fit in one array
+    private static final int MAX_HIDDEN_SIZE = Integer.MAX_VALUE / INPUTS;
+    // Bytes read from the stream at a time
+    private static final int CHUNK_BYTES = 1 << 16;
+
+    final int hiddenSize;
+    final short[] hiddenBiases;
+    // Input i's weights are at i * hiddenSize
+    final short[] inputWeights;
+    final byte[] outputWeights;
+    final int outputBias;
+
+    Network(short[] hiddenBiases, short[] inputWeights, byte[] outputWeights, int outputBias) {
+        this.hiddenSize = hiddenBiases.length;
+        this.hiddenBiases = hiddenBiases;
+        this.inputWeights = inputWeights;
+        this.outputWeights = outputWeights;
+        this.outputBias = outputBias;
+    }
+
+    public int getHiddenSize() {
+        return hiddenSize;
+    }
+
+    public static Network load(File file) throws IOException {
+        try (InputStream in = new FileInputStream(file)) {
+            return load(in);
+        }
+    }
+
+    /**
+     * Reads a network from a stream in the format described above, e.g. an asset.
+     * The weights are read in fixed-size chunks straight into their arrays, so
+     * loading needs little memory beyond the network itself. The stream is read
+     * to its end but not closed.
+     */
+    public static Network load(InputStream in) throws IOException {
+        byte[] chunk = new byte[CHUNK_BYTES];
+        ByteBuffer buffer = ByteBuffer.wrap(chunk).order(ByteOrder.LITTLE_ENDIAN);
+        if (!readFully(in, chunk, 8) || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a network file");
+        }
+        int hiddenSize = buffer.getInt(4);
+        if (hiddenSize <= 0 || hiddenSize > MAX_HIDDEN_SIZE) {
+            throw new IOException("Network file has an unsupported hidden size " + hiddenSize);
+        }
+        short[] hiddenBiases = new short[hiddenSize];
+        short[] inputWeights = new short[INPUTS * hiddenSize];
+        byte[] outputWeights = new byte[2 * hiddenSize];
+        if (!readShorts(in, chunk, buffer, hiddenBiases)
+                || !readShorts(in, chunk, buffer, inputWeights)
+                || !readFully(in, outputWeights, outputWeights.length)
+                || !readFully(in, chunk, 4)
+                || in.read() != -1) {
+            throw new IOException("Network file has the wrong size for hidden size " + hiddenSize);
+        }
+        return new Network(hiddenBiases, inputWeights, outputWeights, buffer.getInt(0));
+    }
+
+    // Fills the array with little-endian int16 values, a chunk at a time
+    private static boolean readShorts(InputStream in, byte[] chunk, ByteBuffer buffer, short[] values)
+            throws IOException {
+        for (int offset = 0; offset < values.length; ) {
+            int count = Math.min(values.length - offset, chunk.length / 2);
+            if (!readFully(in, chunk, 2 * count)) {
+                return false;
+            }
+            buffer.clear();
+            buffer.asShortBuffer().get(values, offset, count);
+            offset += count;
+        }
+        return true;
+    }
+
+    // Reads exactly length bytes into the start of the array, or returns false at the end of the stream
+    private static boolean readFully(InputStream in, byte[] bytes, int length) throws IOException {
+        for (int offset = 0; offset < length; ) {
+            int n = in.read(bytes, offset, length - offset);
+            if (n < 0) {
+                return false;
+            }
+            offset += n;
+        }
+        return true;
+    }
+
+    /**
+     * Offset of an input's weights: a piece of the given index on a square, seen from the
+     * given side with its king on kingSquare. Kings themselves are not inputs.
+     */
+    int inputOffset(int perspective, int kingSquare, Piece piece, int square) {
+        int flip = perspective == Piece.Color.WHITE.ordinal() ? 0 : 56;
+        int relativeColor = piece.getColor().ordinal() == perspective ? 0 : 1;
+        int input = (((kingSquare ^ flip) * 10 + relativeColor * 5 + piece.getType().ordinal()) << 6) | (square ^ flip);
+        return input * hiddenSize;
+    }
+}
@@ -0,0 +1,239 @@
+package com.bhram.chess2.engine;
+
+import com.bhram.chess2.Attacks;
+import com.bhram.chess2.Piece;
+import com.bhram.chess2.Position;
+
+import java.util.Arrays;
+
+/**
+ * PawnTable caches pawn structure evaluations by the position's pawn key.
+ * Passed, doubled, isolated and backward pawns depend on the pawns alone,
+ * which change far less often than the rest of the board, so in a search
+ * most positions find their pawn terms already worked out here.
+ *
+ * The king's pawn shield also depends on where the king stands, so each
+ * entry additionally remembers the shield for the king squares it was
+ * last asked about, and only recomputes it when a king has moved.
+ *
+ * A table belongs to one search thread, so it needs no synchronisation.
+ * Entries are replaced unconditionally. All scores are in centipawns from
+ * White's point of view.
+ */
+public final class PawnTable {
+
+    /**
+     * Number of entries unless another is given, about 200 KB
+     */
+    public static final int DEFAULT_ENTRIES = 1 << 13;
+
+    // Bonuses for a passed pawn by how far it has advanced, from its starting rank
+    private static final int[] PASSED_MIDDLEGAME = {0, 5, 10, 15, 25, 40, 60, 0};
+    private static final int[] PASSED_ENDGAME = {0, 10, 15, 25, 45, 75, 110, 0};
+    private static final int DOUBLED_MIDDLEGAME = -10;
+    private static final int DOUBLED_ENDGAME = -20;
+    private static final int ISOLATED_MIDDLEGAME = -12;
+    private static final int ISOLATED_ENDGAME = -15;
+    private static final int BACKWARD_MIDDLEGAME = -8;
+    private static final int BACKWARD_ENDGAME = -10;
+    // Shield pawns one and two squares in front of a castled king, and an open file beside it
+    private static final int SHIELD_NEAR = 12;
+    private static final int SHIELD_FAR = 6;
+    private static final int SHIELD_MISSING = -15;
+
+    private static final long[] FILES = new long[8];
+    private static final long[] ADJACENT_FILES = new long[8];
+    // Squares strictly in front of each row, by color
+    private static final long[][] AHEAD = new long[2][8];
+
+    static {
+        for (int col = 0; col < 8; col++) {
+            FILES[col] = 0x0101010101010101L << col;
+        }
+        for (int col = 0; col < 8; col++) {
+            ADJACENT_FILES[col] = (col > 0 ? FILES[col - 1] : 0L) | (col < 7 ? FILES[col + 1] : 0L);
+        }
+        for (int row = 0; row < 8; row++) {
+            for (int other = 0; other < 8; other++) {
+                long rank = 0xFFL << (other * 8);
+                if (other < row) {
+                    AHEAD[Piece.Color.WHITE.ordinal()][row] |= rank;
+                }
+                if (other > row) {
+                    AHEAD[Piece.Color.BLACK.ordinal()][row] |= rank;
+                }
+            }
+        }
+    }
+
+    private final long[] keys;
+    private final int[] middlegame;
+    private final int[] endgame;
+    // King squares the cached shield was computed for, white's in the low six bits, or -1
+    private final int[] shieldKings;
+    private final int[] shields;
+    private final int mask;
+
+    private long probes;
+    private long hits;
+
+    public PawnTable() {
+        this(DEFAULT_ENTRIES);
+    }
+
+    /**
+     * Creates a table with the given number of entries, rounded down to a power of two
+     */
+    public PawnTable(int entries) {
+        int size = Integer.highestOneBit(Math.max(entries, 1));
+        keys = new long[size];
+        middlegame = new int[size];
+        endgame = new int[size];
+        shieldKings = new int[size];
+        shields = new int[size];
+        mask = size - 1;
+        clear();
+    }
+
+    public void clear() {
+        // A pawnless board has key 0 and no pawn terms, so zeroed entries are already right for it
+        Arrays.fill(keys, 0L);
+        Arrays.fill(middlegame, 0);
+        Arrays.fill(endgame, 0);
+        Arrays.fill(shieldKings, -1);
+        probes = 0;
+        hits = 0;
+    }
+
+    /**
+     * Finds the position's pawn structure entry, evaluating it first if it is not cached,
+     * and returns its index for reading with middlegame, endgame and shield
+     */
+    public int probe(Position position) {
+        long key = position.getPawnKey();
+        int entry = (int) key & mask;
+        probes++;
+        if (keys[entry] == key) {
+            hits++;
+            return entry;
+        }
+        keys[entry] = key;
+        middlegame[entry] = structure(position, false);
+        endgame[entry] = structure(position, true);
+        shieldKings[entry] = -1;
+        return entry;
+    }
+
+    public int middlegame(int entry) {
+        return middlegame[entry];
+    }
+
+    public int endgame(int entry) {
+        return endgame[entry];
+    }
+
+    /**
+     * Middlegame score of both kings' pawn shields in the entry's pawn structure
+     */
+    public int shield(int entry, Position position) {
+        int kings = position.kingSquare(Piece.Color.WHITE) | (position.kingSquare(Piece.Color.BLACK) << 6);
+        if (shieldKings[entry] != kings) {
+            shieldKings[entry] = kings;
+            shields[entry] = shield(position);
+        }
+        return shields[entry];
+    }
+
+    public long getProbes() {
+        return probes;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return probes - hits;
+    }
+
+    /**
+     * Fraction of probes that found their entry cached, between 0 and 1
+     */
+    public double getHitRate() {
+        return probes == 0 ? 0.0 : (double) hits / probes;
+    }
+
+    /**
+     * Evaluates the pawn structure from scratch, for the middlegame or the endgame
+     */
+    static int structure(Position position, boolean endgamePhase) {
+        return structure(position, Piece.Color.WHITE, endgamePhase) - structure(position, Piece.Color.BLACK, endgamePhase);
+    }
+
+    /**
+     * Evaluates both kings' pawn shields from scratch
+     */
+    static int shield(Position position) {
+        return shield(position, Piece.Color.WHITE) - shield(position, Piece.Color.BLACK);
+    }
+
+    private static int structure(Position position, Piece.Color color, boolean endgamePhase) {
+        Piece.Color them = color == Piece.Color.WHITE ? Piece.Color.BLACK : Piece.Color.WHITE;
+        long ours = position.pieces(color, Piece.Type.PAWN);
+        long theirs = position.pieces(them, Piece.Type.PAWN);
+        int side = color.ordinal();
+        int score = 0;
+        for (long pawns = ours; pawns != 0; pawns &= pawns - 1) {
+            int sq = Long.numberOfTrailingZeros(pawns);
+            int row = Position.row(sq);
+            int col = Position.col(sq);
+            long ahead = AHEAD[side][row];
+            int advanced = color == Piece.Color.WHITE ? 7 - row : row;
+
+            if ((ours & FILES[col] & ahead) != 0) {
+                score += endgamePhase ? DOUBLED_ENDGAME : DOUBLED_MIDDLEGAME;
+            }
+            if ((theirs & (FILES[col] | ADJACENT_FILES[col]) & ahead) == 0 && (ours & FILES[col] & ahead) == 0) {
+                score += endgamePhase ? PASSED_ENDGAME[advanced] : PASSED_MIDDLEGAME[advanced];
+            }
+            if ((ours & ADJACENT_FILES[col]) == 0) {
+                score += endgamePhase ? ISOLATED_ENDGAME : ISOLATED_MIDDLEGAME;
+            } else if ((ours & ADJACENT_FILES[col] & ~ahead) == 0) {
+                // No neighbour level or behind can ever defend it, and an enemy pawn guards the square in front
+                int stop = color == Piece.Color.WHITE ? sq - 8 : sq + 8;
+                if ((Attacks.pawn(color, stop) & theirs) != 0) {
+                    score += endgamePhase ? BACKWARD_ENDGAME : BACKWARD_MIDDLEGAME;
+                }
+            }
+        }
+        return score;
+    }
+
+    private static int shield(Position position, Piece.Color color) {
+        int king = position.kingSquare(color);
+        if (king == Position.NO_SQUARE) {
+            return 0;
+        }
+        int row = Position.row(king);
+        boolean white = color == Piece.Color.WHITE;
+        // Only a king still on its first two ranks is sheltering behind pawns
+        if ((white ? 7 - row : row) > 1) {
+            return 0;
+        }
+        long ours = position.pieces(color, Piece.Type.PAWN);
+        int kingCol = Position.col(king);
+        int score = 0;
+        for (int col = Math.max(kingCol - 1, 0); col <= Math.min(kingCol + 1, 7); col++) {
+            int near = white ? row - 1 : row + 1;
+            int far = white ? row - 2 : row + 2;
+            if (near >= 0 && near < 8 && (ours & Position.bit(Position.square(near, col))) != 0) {
+                score += SHIELD_NEAR;
+            } else if (far >= 0 && far < 8 && (ours & Position.bit(Position.square(far, col))) != 0) {
+                score += SHIELD_FAR;
+            } else if ((ours & FILES[col]) == 0) {
+                score += SHIELD_MISSING;
+            }
+        }
+        return score;
+    }
+}
@@ -0,0 +1,395 @@
+package com.bhram.chess2.engine;
+
+import com.bhram.chess2.Material;
+import com.bhram.chess2.MoveGenerator;
+import com.bhram.chess2.Move;
+import com.bhram.chess2.Piece;
+import com.bhram.chess2.Position;
+import com.bhram.chess2.StaticExchange;
+
+import java.util.Arrays;
+
+/**
+ * Search runs one iterative-deepening negamax alpha-beta search on its own
+ * copy of a position. Each iteration searches one ply deeper than the last,
+ * trying the previous iteration's principal variation first, so that most
+ * moves after the first can be refuted with a null window (principal
+ * variation search) and only re-searched when they turn out better.
+ * Results are kept in a transposition table, which supplies a best move to
+ * try first and, outside the principal variation, cutoffs for positions
+ * already searched deeply enough. The other moves are ordered by
+ * MoveOrdering.
+ *
+ * Where the full-width search runs out of depth, a quiescence search plays
+ * on through captures and queen promotions until the position is quiet, so
+ * a leaf in the middle of an exchange is not scored as if it were over.
+ * Captures that static exchange evaluation says lose material are skipped.
+ * Leaves are scored by Evaluation, or by an evaluation network whose
+ * first layer is updated as the search makes and unmakes moves.
+ *
+ * All per-ply buffers are allocated once, so a search allocates nothing
+ * per node and one instance can be reused for any number of searches.
+ */
+final class Search {
+
+    static final int MAX_PLY = 128;
+    static final int MATE = 32000;
+    static final int INFINITY = 32767;
+
+    // Nodes between checks of the clock and the stop flag
+    private static final int CHECK_INTERVAL = 1023;
+
+    private final Engine engine;
+    private final TranspositionTable table;
+    private final Position position = new Position();
+    private final int[][] moves = new int[MAX_PLY][MoveGenerator.MAX_MOVES];
+    private final int[][] quietsTried = new int[MAX_PLY][MoveGenerator.MAX_MOVES];
+    private final MoveOrdering ordering = new MoveOrdering();
+    // Kept across searches, since pawn structures change little from one move to the next
+    private final PawnTable pawns = new PawnTable();
+    // First-layer sums of the evaluation network, or null to evaluate without one
+    private Accumulators accumulators;
+
+    // Triangular principal variation table: pv[ply] holds the best line from ply onwards
+    private final int[][] pv = new int[MAX_PLY][MAX_PLY];
+    private final int[] pvLength = new int[MAX_PLY];
+    // Principal variation of the last completed iteration, searched first in the next
+    private final int[] previousPv = new int[MAX_PLY];
+    private int previousPvLength;
+    private boolean followPv;
+
+    private SearchLimits limits;
+    private long startNanos;
+    private long deadlineNanos;
+    private long nodes;
+    private long probes;
+    private long hits;
+    private int completedDepth;
+    private boolean aborted;
+
+    Search(Engine engine, TranspositionTable table) {
+        this.engine = engine;
+        this.table = table;
+    }
+
+    long getNodes() {
+        return nodes;
+    }
+
+    PawnTable getPawnTable() {
+        return pawns;
+    }
+
+    /**
+     * Evaluates leaves with the network from now on, or with Evaluation if it is null
+     */
+    void setNetwork(Network network) {
+        accumulators = network == null ? null : new Accumulators(network);
+    }
+
+    /**
+     * Searches the position within the limits and returns the result of the deepest
+     * completed iteration. A depth offset makes every iteration that much deeper, so
+     * helper threads sharing the transposition table work ahead of the main thread.
+     */
+    SearchResult run(Position root, SearchLimits limits, int depthOffset) {
+        position.copyFrom(root);
+        if (accumulators != null) {
+            accumulators.reset(position);
+        }
+        this.limits = limits;
+        startNanos = System.nanoTime();
+        deadlineNanos = limits.getTimeMillis() > 0 ? startNanos + limits.getTimeMillis() * 1_000_000L : Long.MAX_VALUE;
+        TimeManager time = null;
+        if (limits.getClockMillis() > 0) {
+            time = new TimeManager(limits);
+            deadlineNanos = Math.min(deadlineNanos, startNanos + time.getHardMillis() * 1_000_000L);
+        }
+        nodes = 0;
+        probes = 0;
+        hits = 0;
+        completedDepth = 0;
+        aborted = false;
+        previousPvLength = 0;
+        ordering.newSearch();
+
+        int[] rootMoves = moves[0];
+        int rootCount = MoveGenerator.generateLegalMoves(position, position.getSideToMove(), rootMoves);
+        if (rootCount == 0) {
+            int score = MoveGenerator.checkers(position, position.getSideToMove()) != 0 ? -MATE : 0;
+            return new SearchResult(Move.NONE, score, 0, new int[0], 0, System.nanoTime() - startNanos);
+        }
+
+        SearchResult result = new SearchResult(rootMoves[0], evaluate(), 0,
+                new int[] {rootMoves[0]}, 0, 0);
+        for (int iteration = 1; iteration <= limits.getDepth(); iteration++) {
+            int depth = Math.min(iteration + depthOffset, MAX_PLY - 1);
+            followPv = true;
+            int score = search(depth, -INFINITY, INFINITY, 0);
+            if (aborted) {
+                break;
+            }
+            completedDepth = depth;
+            previousPvLength = pvLength[0];
+            System.arraycopy(pv[0], 0, previousPv, 0, previousPvLength);
+            result = new SearchResult(previousPv[0], score, depth, Arrays.copyOf(previousPv, previousPvLength),
+                    nodes, System.nanoTime() - startNanos);
+            // A forced mate found within the searched depth cannot get any shorter
+            if (Math.abs(score) >= MATE - depth || rootCount == 1) {
+                break;
+            }
+            if (time != null) {
+                time.iterationDone(previousPv[0], score);
+                if (time.shouldStop((System.nanoTime() - startNanos) / 1_000_000L)) {
+                    break;
+                }
+            }
+        }
+        table.recordProbes(probes, hits);
+        return new SearchResult(result.getBestMove(), result.getScore(), result.getDepth(),
+                result.getPrincipalVariation(), nodes, System.nanoTime() - startNanos);
+    }
+
+    private int search(int depth, int alpha, int beta, int ply) {
+        // At the horizon only captures are searched, unless in check and about to be extended
+        if (depth <= 0 && MoveGenerator.checkers(position, position.getSideToMove()) == 0) {
+            return quiesce(alpha, beta, ply);
+        }
+        pvLength[ply] = ply;
+        nodes++;
+        if ((nodes & CHECK_INTERVAL) == 0) {
+            checkLimits();
+        }
+        if (aborted) {
+            return 0;
+        }
+        if (ply > 0 && isDraw()) {
+            return 0;
+        }
+        if (ply >= MAX_PLY - 1) {
+            return evaluate();
+        }
+
+        Piece.Color side = position.getSideToMove();
+        boolean inCheck = MoveGenerator.checkers(position, side) != 0;
+        if (inCheck) {
+            // Look one ply further at checks so forced sequences are not cut off at the horizon
+            depth++;
+        }
+
+        long key = position.getKey();
+        long entry = table.probe(key);
+        probes++;
+        int hashMove = Move.NONE;
+        if (entry != 0) {
+            hits++;
+            hashMove = TranspositionTable.move(entry);
+            // Null-window nodes may take the stored score; PV nodes search on for an exact line
+            if (ply > 0 && beta - alpha == 1 && TranspositionTable.depth(entry) >= depth) {
+                int stored = scoreFromTable(TranspositionTable.score(entry), ply);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.BOUND_EXACT
+                        || (bound == TranspositionTable.BOUND_LOWER && stored >= beta)
+                        || (bound == TranspositionTable.BOUND_UPPER && stored <= alpha)) {
+                    return stored;
+                }
+            }
+        }
+
+        int[] list = moves[ply];
+        int count = MoveGenerator.generateLegalMoves(position, side, list);
+        if (count == 0) {
+            return inCheck ? -MATE + ply : 0;
+        }
+        // While still on the previous iteration's principal variation, search its move first
+        int pvMove = followPv && ply < previousPvLength ? previousPv[ply] : Move.NONE;
+        boolean foundFirst = ordering.score(position, list, count, ply, pvMove != Move.NONE ? pvMove : hashMove);
+        followPv = pvMove != Move.NONE && foundFirst;
+
+        int originalAlpha = alpha;
+        int bestScore = -INFINITY;
+        int bestMove = Move.NONE;
+        int quietCount = 0;
+        for (int i = 0; i < count; i++) {
+            int move = ordering.next(list, count, i, ply);
+            makeMove(move);
+            int score;
+            if (i == 0) {
+                score = -search(depth - 1, -beta, -alpha, ply + 1);
+            } else {
+                // Prove the move is no better than the best so far, re-searching if it is
+                score = -search(depth - 1, -alpha - 1, -alpha, ply + 1);
+                if (score > alpha && score < beta) {
+                    score = -search(depth - 1, -beta, -alpha, ply + 1);
+                }
+            }
+            unmakeMove();
+            followPv = false;
+            if (aborted) {
+                return 0;
+            }
+
+            if (score > bestScore) {
+                bestScore = score;
+                if (score > alpha) {
+                    alpha = score;
+                    bestMove = move;
+                    updatePv(ply, move);
+                    if (alpha >= beta) {
+                        if (MoveOrdering.isQuiet(move)) {
+                            ordering.quietCutoff(position, move, ply, depth, quietsTried[ply], quietCount);
+                        }
+                        break;
+                    }
+                }
+            }
+            if (MoveOrdering.isQuiet(move)) {
+                quietsTried[ply][quietCount++] = move;
+            }
+        }
+
+        int bound = bestScore >= beta ? TranspositionTable.BOUND_LOWER
+                : bestScore > originalAlpha ? TranspositionTable.BOUND_EXACT : TranspositionTable.BOUND_UPPER;
+        table.store(key, bestMove, scoreToTable(bestScore, ply), depth, bound);
+        return bestScore;
+    }
+
+    /**
+     * Searches captures only, letting the side to move stand pat on the static evaluation
+     * if no capture improves on it. In check, every evasion is searched instead.
+     */
+    private int quiesce(int alpha, int beta, int ply) {
+        pvLength[ply] = ply;
+        nodes++;
+        if ((nodes & CHECK_INTERVAL) == 0) {
+            checkLimits();
+        }
+        if (aborted) {
+            return 0;
+        }
+        if (isDraw()) {
+            return 0;
+        }
+        if (ply >= MAX_PLY - 1) {
+            return evaluate();
+        }
+
+        Piece.Color side = position.getSideToMove();
+        boolean inCheck = MoveGenerator.checkers(position, side) != 0;
+        int[] list = moves[ply];
+        int count;
+        int bestScore;
+        if (inCheck) {
+            count = MoveGenerator.generateLegalMoves(position, side, list);
+            if (count == 0) {
+                return -MATE + ply;
+            }
+            bestScore = -INFINITY;
+        } else {
+            bestScore = evaluate();
+            if (bestScore >= beta) {
+                return bestScore;
+            }
+            if (bestScore > alpha) {
+                alpha = bestScore;
+            }
+            count = MoveGenerator.generateLegalCaptures(position, side, list);
+        }
+        ordering.score(position, list, count, ply, Move.NONE);
+
+        for (int i = 0; i < count; i++) {
+            int move = ordering.next(list, count, i, ply);
+            if (!inCheck && (isUnderPromotion(move) || !StaticExchange.isAtLeast(position, move, 0))) {
+                continue;
+            }
+            makeMove(move);
+            int score = -quiesce(-beta, -alpha, ply + 1);
+            unmakeMove();
+            if (aborted) {
+                return 0;
+            }
+
+            if (score > bestScore) {
+                bestScore = score;
+                if (score > alpha) {
+                    alpha = score;
+                    updatePv(ply, move);
+                    if (alpha >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+        return bestScore;
+    }
+
+    private static boolean isUnderPromotion(int move) {
+        return Move.isPromotion(move) && Move.promotionType(move) != Piece.Type.QUEEN;
+    }
+
+    private int evaluate() {
+        return accumulators != null ? accumulators.evaluate(position) : Evaluation.evaluate(position, pawns);
+    }
+
+    private void makeMove(int move) {
+        position.makeMove(move);
+        if (accumulators != null) {
+            accumulators.push(position);
+        }
+    }
+
+    private void unmakeMove() {
+        position.unmakeMove();
+        if (accumulators != null) {
+            accumulators.pop();
+        }
+    }
+
+    // Mate scores are stored relative to the node, not the root, so they stay right
+    // when the position is reached again at another ply
+    private static int scoreToTable(int score, int ply) {
+        if (score >= MATE - MAX_PLY) {
+            return score + ply;
+        }
+        if (score <= -MATE + MAX_PLY) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    private static int scoreFromTable(int score, int ply) {
+        if (score >= MATE - MAX_PLY) {
+            return score - ply;
+        }
+        if (score <= -MATE + MAX_PLY) {
+            return score + ply;
+        }
+        return score;
+    }
+
+    // Fifty-move rule, a repeated position or material that cannot mate
+    private boolean isDraw() {
+        if (position.getHalfMoveClock() >= 100 || position.repetitionCount() > 0) {
+            return true;
+        }
+        long bishops = position.pieces(Piece.Color.WHITE, Piece.Type.BISHOP) | position.pieces(Piece.Color.BLACK, Piece.Type.BISHOP);
+        return Material.isInsufficient(position.getMaterialKey(), bishops);
+    }
+
+    private void updatePv(int ply, int move) {
+        pv[ply][ply] = move;
+        int length = pvLength[ply + 1];
+        System.arraycopy(pv[ply + 1], ply + 1, pv[ply], ply + 1, length - ply - 1);
+        pvLength[ply] = length;
+    }
+
+    // The first iteration always runs to completion so there is a searched move to return
+    private void checkLimits() {
+        if (engine.isStopped()) {
+            aborted = true;
+        } else if (completedDepth > 0) {
+            long nodeLimit = limits.getNodes();
+            aborted = (nodeLimit > 0 && nodes >= nodeLimit) || System.nanoTime() >= deadlineNanos;
+        }
+    }
+}
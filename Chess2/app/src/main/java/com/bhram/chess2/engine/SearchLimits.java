@@ -0,0 +1,96 @@
+package com.bhram.chess2.engine;
+
+/**
+ * SearchLimits says when a search has to stop: after a maximum depth, a
+ * number of nodes or an amount of thinking time, whichever comes first.
+ * Zero means no limit, except for depth, which defaults to the deepest
+ * search the engine supports.
+ *
+ * Instead of a fixed time, a search can be given the side to move's clock:
+ * the time it has left, its increment per move and optionally how many
+ * moves remain until the next time control. A TimeManager then decides
+ * how long to think.
+ */
+public final class SearchLimits {
+
+    private final int depth;
+    private final long nodes;
+    private final long timeMillis;
+    private final long clockMillis;
+    private final long incrementMillis;
+    private final int movesToGo;
+
+    public SearchLimits(int depth, long nodes, long timeMillis) {
+        this(depth, nodes, timeMillis, 0, 0, 0);
+    }
+
+    private SearchLimits(int depth, long nodes, long timeMillis, long clockMillis, long incrementMillis, int movesToGo) {
+        this.depth = depth <= 0 || depth > Search.MAX_PLY - 1 ? Search.MAX_PLY - 1 : depth;
+        this.nodes = nodes;
+        this.timeMillis = timeMillis;
+        this.clockMillis = clockMillis;
+        this.incrementMillis = incrementMillis;
+        this.movesToGo = movesToGo;
+    }
+
+    public static SearchLimits depth(int depth) {
+        return new SearchLimits(depth, 0, 0);
+    }
+
+    public static SearchLimits nodes(long nodes) {
+        return new SearchLimits(0, nodes, 0);
+    }
+
+    public static SearchLimits time(long millis) {
+        return new SearchLimits(0, 0, millis);
+    }
+
+    /**
+     * Thinks for as long as the side to move's remaining time and increment allow
+     */
+    public static SearchLimits clock(long remainingMillis, long incrementMillis) {
+        return clock(remainingMillis, incrementMillis, 0);
+    }
+
+    /**
+     * Like clock(remainingMillis, incrementMillis), with movesToGo moves left until
+     * the next time control (0 if the remaining time has to last the whole game)
+     */
+    public static SearchLimits clock(long remainingMillis, long incrementMillis, int movesToGo) {
+        if (remainingMillis <= 0) {
+            throw new IllegalArgumentException("Remaining time must be positive: " + remainingMillis);
+        }
+        return new SearchLimits(0, 0, 0, remainingMillis, incrementMillis, movesToGo);
+    }
+
+    /**
+     * No limit at all; the search runs until it is stopped
+     */
+    public static SearchLimits infinite() {
+        return new SearchLimits(0, 0, 0);
+    }
+
+    public int getDepth() { return depth; }
+
+    public long getNodes() { return nodes; }
+
+    public long getTimeMillis() { return timeMillis; }
+
+    public long getClockMillis() { return clockMillis; }
+
+    public long getIncrementMillis() { return incrementMillis; }
+
+    public int getMovesToGo() { return movesToGo; }
+
+    @Override
+    public String toString() {
+        String s = "depth " + depth + ", nodes " + nodes + ", time " + timeMillis + " ms";
+        if (clockMillis > 0) {
+            s += ", clock " + clockMillis + "+" + incrementMillis + " ms";
+            if (movesToGo > 0) {
+                s += ", " + movesToGo + " moves to go";
+            }
+        }
+        return s;
+    }
+}
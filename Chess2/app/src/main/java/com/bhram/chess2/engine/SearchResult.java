@@ -0,0 +1,78 @@
+package com.bhram.chess2.engine;
+
+import com.bhram.chess2.Move;
+
+/**
+ * Outcome of a search: the best move with its score and principal
+ * variation, how deep the last completed iteration went, and how much
+ * work it took. Scores are in centipawns from the side to move's point
+ * of view; mate scores are reported through isMate and getMateIn.
+ */
+public final class SearchResult {
+
+    private final int bestMove;
+    private final int score;
+    private final int depth;
+    private final int[] principalVariation;
+    private final long nodes;
+    private final long nanos;
+
+    public SearchResult(int bestMove, int score, int depth, int[] principalVariation, long nodes, long nanos) {
+        this.bestMove = bestMove;
+        this.score = score;
+        this.depth = depth;
+        this.principalVariation = principalVariation;
+        this.nodes = nodes;
+        this.nanos = nanos;
+    }
+
+    /**
+     * The move to play, or Move.NONE if the side to move has no legal move
+     */
+    public int getBestMove() { return bestMove; }
+
+    public int getScore() { return score; }
+
+    public int getDepth() { return depth; }
+
+    /**
+     * The expected line of play starting with the best move
+     */
+    public int[] getPrincipalVariation() { return principalVariation.clone(); }
+
+    public long getNodes() { return nodes; }
+
+    public long getNanos() { return nanos; }
+
+    public long getNodesPerSecond() {
+        return nanos == 0 ? 0 : nodes * 1_000_000_000L / nanos;
+    }
+
+    public boolean isMate() {
+        return Math.abs(score) >= Search.MATE - Search.MAX_PLY;
+    }
+
+    /**
+     * Moves until mate, positive when the side to move mates and negative when it gets mated
+     */
+    public int getMateIn() {
+        if (!isMate()) {
+            return 0;
+        }
+        int plies = Search.MATE - Math.abs(score);
+        return score > 0 ? (plies + 1) / 2 : -(plies / 2);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("depth ").append(depth);
+        sb.append(isMate() ? " mate " + getMateIn() : " cp " + score);
+        sb.append(" nodes ").append(nodes).append(" nps ").append(getNodesPerSecond());
+        sb.append(" pv");
+        for (int move : principalVariation) {
+            sb.append(' ').append(Move.toString(move));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,101 @@
+package com.bhram.chess2.engine;
+
+/**
+ * TimeManager turns a player's clock into thinking time for one move. The
+ * remaining time is shared out over the moves still expected before the
+ * next time control, plus most of the increment, giving a soft limit; the
+ * hard limit, a few times that, is where the search is cut off even in the
+ * middle of an iteration. Both stay well inside the time actually left, so
+ * the engine cannot lose on time.
+ *
+ * Between iterations the search reports its best move and score. While
+ * the best move keeps changing or the score is dropping the soft limit is
+ * stretched, since more time is likely to change the decision; once the
+ * same move has come out of several iterations in a row it is shrunk, so
+ * obvious moves are played quickly and the time saved goes to later ones.
+ */
+public final class TimeManager {
+
+    /**
+     * Time kept back on every move for the delay between the engine deciding and the
+     * clock being stopped
+     */
+    public static final long MOVE_OVERHEAD_MILLIS = 50;
+
+    // Moves the remaining time is assumed to have to last when the time control does not say
+    private static final int DEFAULT_MOVES_TO_GO = 30;
+    private static final int MAX_MOVES_TO_GO = 50;
+    // A score this much below the last iteration's means the position is worse than it looked
+    private static final int SCORE_DROP = 30;
+
+    // Soft limit scale by how many iterations in a row have kept the best move, in percent
+    private static final int[] STABILITY_PERCENT = {160, 110, 90, 70, 50};
+
+    private final long softMillis;
+    private final long hardMillis;
+
+    private int lastBestMove;
+    private int lastScore;
+    private int stableIterations;
+    private boolean scoreDropped;
+    private boolean started;
+
+    public TimeManager(long remainingMillis, long incrementMillis, int movesToGo) {
+        long usable = Math.max(remainingMillis - MOVE_OVERHEAD_MILLIS, 1);
+        int moves = movesToGo > 0 ? Math.min(movesToGo, MAX_MOVES_TO_GO) : DEFAULT_MOVES_TO_GO;
+        long soft = Math.min(usable / moves + incrementMillis * 3 / 4, usable / 2);
+        softMillis = Math.max(soft, 1);
+        hardMillis = Math.max(Math.min(softMillis * 4, usable * 3 / 4), softMillis);
+    }
+
+    public TimeManager(SearchLimits limits) {
+        this(limits.getClockMillis(), limits.getIncrementMillis(), limits.getMovesToGo());
+    }
+
+    /**
+     * Thinking time aimed for, before adjusting for how settled the search is
+     */
+    public long getSoftMillis() {
+        return softMillis;
+    }
+
+    /**
+     * Thinking time the search must never exceed
+     */
+    public long getHardMillis() {
+        return hardMillis;
+    }
+
+    /**
+     * Records the outcome of a completed iteration
+     */
+    public void iterationDone(int bestMove, int score) {
+        if (started && bestMove == lastBestMove) {
+            stableIterations++;
+        } else {
+            stableIterations = 0;
+        }
+        scoreDropped = started && score <= lastScore - SCORE_DROP;
+        lastBestMove = bestMove;
+        lastScore = score;
+        started = true;
+    }
+
+    /**
+     * Soft limit scaled by how settled the best move and score are, within the hard limit
+     */
+    public long getAdjustedMillis() {
+        int percent = STABILITY_PERCENT[Math.min(stableIterations, STABILITY_PERCENT.length - 1)];
+        if (scoreDropped) {
+            percent = percent * 3 / 2;
+        }
+        return Math.min(softMillis * percent / 100, hardMillis);
+    }
+
+    /**
+     * Checks, between iterations, if the search should play its move rather than go deeper
+     */
+    public boolean shouldStop(long elapsedMillis) {
+        return elapsedMillis >= getAdjustedMillis();
+    }
+}
@@ -0,0 +1,172 @@
+package com.bhram.chess2.engine;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * TranspositionTable remembers search results by position key so that a
+ * position reached again, through another move order or in a later
+ * iteration, can reuse them. It is a fixed power-of-two number of 16-byte
+ * slots in one long array that any number of search threads share without
+ * locking.
+ *
+ * Each slot holds a data word packing the best move, score, depth, bound
+ * type and search generation, next to the position key XORed with that
+ * data word. A probe only accepts the slot if XORing the two words gives
+ * back the probed key, so a slot half written by one thread while another
+ * reads it, or one holding a different position, simply reads as a miss.
+ *
+ * Data word layout, from the low bits up: move (16), score (16, signed),
+ * depth (8), bound (2), generation (6).
+ */
+public final class TranspositionTable {
+
+    /** No usable score, only a move */
+    public static final int BOUND_NONE = 0;
+    /** The score is at most the stored value (no move beat alpha) */
+    public static final int BOUND_UPPER = 1;
+    /** The score is at least the stored value (a move reached beta) */
+    public static final int BOUND_LOWER = 2;
+    public static final int BOUND_EXACT = 3;
+
+    private static final int SLOT_BYTES = 16;
+    private static final int GENERATION_MASK = 0x3F;
+
+    private long[] slots;
+    private int mask;
+    private int generation;
+
+    private final AtomicLong probes = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+
+    public TranspositionTable(int megabytes) {
+        resize(megabytes);
+    }
+
+    /**
+     * Reallocates the table with the largest power-of-two number of slots that fits
+     * in the given size, discarding its contents
+     */
+    public void resize(int megabytes) {
+        long entries = Long.highestOneBit(Math.max(megabytes, 1) * 1024L * 1024L / SLOT_BYTES);
+        slots = new long[(int) entries * 2];
+        mask = (int) entries - 1;
+        generation = 0;
+    }
+
+    public int getSizeMegabytes() {
+        return (int) ((long) slots.length * 8 / (1024 * 1024));
+    }
+
+    public void clear() {
+        Arrays.fill(slots, 0L);
+        generation = 0;
+        probes.set(0);
+        hits.set(0);
+    }
+
+    /**
+     * Starts a new search, so entries from earlier searches are the first to be replaced
+     */
+    public void newSearch() {
+        // Generations run from 1 to 63, so a stored data word is never 0 like an empty slot
+        generation = generation % GENERATION_MASK + 1;
+    }
+
+    /**
+     * Looks up a position, returning its data word or 0 if the table has nothing for it
+     */
+    public long probe(long key) {
+        int index = ((int) key & mask) << 1;
+        long data = slots[index + 1];
+        if ((slots[index] ^ data) != key || data == 0) {
+            return 0L;
+        }
+        return data;
+    }
+
+    /**
+     * Stores a search result. An entry for another position is only replaced if it
+     * was left by an earlier search or searched no deeper; the same position's entry
+     * keeps its move when the new result has none.
+     */
+    public void store(long key, int move, int score, int depth, int bound) {
+        int index = ((int) key & mask) << 1;
+        long old = slots[index + 1];
+        boolean samePosition = (slots[index] ^ old) == key;
+        if (old != 0 && !samePosition && generation(old) == generation && depth < depth(old)) {
+            return;
+        }
+        if (move == 0 && samePosition) {
+            move = move(old);
+        }
+        long data = (move & 0xFFFFL)
+                | ((score & 0xFFFFL) << 16)
+                | ((long) (depth & 0xFF) << 32)
+                | ((long) bound << 40)
+                | ((long) generation << 42);
+        slots[index + 1] = data;
+        slots[index] = key ^ data;
+    }
+
+    /**
+     * Adds one search's probe and hit counts to the table's totals. Searches count
+     * locally and report once, so threads sharing the table never contend on counters.
+     */
+    public void recordProbes(long probeCount, long hitCount) {
+        probes.addAndGet(probeCount);
+        hits.addAndGet(hitCount);
+    }
+
+    public long getProbes() {
+        return probes.get();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Fraction of probes that found an entry, between 0 and 1
+     */
+    public double getHitRate() {
+        long probeCount = probes.get();
+        return probeCount == 0 ? 0.0 : (double) hits.get() / probeCount;
+    }
+
+    /**
+     * How full the table is with entries from the current search, in permille,
+     * estimated from the first thousand slots
+     */
+    public int hashfull() {
+        int used = 0;
+        int sample = Math.min(1000, mask + 1);
+        for (int i = 0; i < sample; i++) {
+            long data = slots[(i << 1) + 1];
+            if (data != 0 && generation(data) == generation) {
+                used++;
+            }
+        }
+        return used * 1000 / sample;
+    }
+
+    public static int move(long data) {
+        return (int) (data & 0xFFFF);
+    }
+
+    public static int score(long data) {
+        return (short) (data >>> 16);
+    }
+
+    public static int depth(long data) {
+        return (int) ((data >>> 32) & 0xFF);
+    }
+
+    public static int bound(long data) {
+        return (int) ((data >>> 40) & 0x3);
+    }
+
+    private static int generation(long data) {
+        return (int) ((data >>> 42) & GENERATION_MASK);
+    }
+}
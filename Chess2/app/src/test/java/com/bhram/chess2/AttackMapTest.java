@@ -0,0 +1,62 @@
+package com.bhram.chess2;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that the incrementally updated attack map matches attacks computed from scratch.
+ */
+public class AttackMapTest {
+
+    @Test
+    public void incrementalMap_matchesAttackersThroughMoves() {
+        for (String fen : Perft.REFERENCE_FENS) {
+            Position position = Position.fromFen(fen);
+            position.trackAttacks();
+            checkTree(position, 3);
+        }
+    }
+
+    @Test
+    public void map_survivesReset() {
+        Position position = new Position();
+        AttackMap map = position.trackAttacks();
+        position.setFromFen(Perft.REFERENCE_FENS[1]);
+        assertMatches(position);
+        position.setupInitialPosition();
+        assertMatches(position);
+        // e3 is covered by the d- and f-pawns, f3 by the e- and g-pawns and the knight
+        assertEquals(2, map.attackerCount(Piece.Color.WHITE, Position.square(5, 4)));
+        assertEquals(3, map.attackerCount(Piece.Color.WHITE, Position.square(5, 5)));
+    }
+
+    private static void checkTree(Position position, int depth) {
+        assertMatches(position);
+        if (depth == 0) {
+            return;
+        }
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = MoveGenerator.generateLegalMoves(position, position.getSideToMove(), moves);
+        for (int i = 0; i < count; i++) {
+            position.makeMove(moves[i]);
+            checkTree(position, depth - 1);
+            position.unmakeMove();
+        }
+    }
+
+    private static void assertMatches(Position position) {
+        AttackMap map = position.getAttackMap();
+        for (Piece.Color color : Piece.Color.values()) {
+            long attacked = 0L;
+            for (int sq = 0; sq < 64; sq++) {
+                long attackers = ChessRules.attackersTo(position, sq, position.occupied()) & position.pieces(color);
+                assertEquals(Long.bitCount(attackers), map.attackerCount(color, sq));
+                if (attackers != 0) {
+                    attacked |= Position.bit(sq);
+                }
+            }
+            assertEquals(attacked, map.attackedBy(color));
+        }
+    }
+}
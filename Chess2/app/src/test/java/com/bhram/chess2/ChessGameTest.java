@@ -0,0 +1,238 @@
+package com.bhram.chess2;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Game-level behaviour of ChessGame: playing moves through the select/move API draw detection and history navigation.
+ */
+public class ChessGameTest {
+
+    private static void play(ChessGame game, int fromRow, int fromCol, int toRow, int toCol) {
+        assertTrue(game.selectPiece(fromRow, fromCol));
+        assertTrue(game.movePiece(toRow, toCol));
+    }
+
+    // Nf3 Nf6 Ng1 Ng8, returning to the starting position
+    private static void shuffleKnights(ChessGame game) {
+        play(game, 7, 6, 5, 5);
+        play(game, 0, 6, 2, 5);
+        play(game, 5, 5, 7, 6);
+        play(game, 2, 5, 0, 6);
+    }
+
+    @Test
+    public void threefoldRepetition_endsGameOnThirdOccurrence() {
+        ChessGame game = new ChessGame();
+        shuffleKnights(game);
+        assertFalse(game.isThreefoldRepetition());
+        assertFalse(game.isGameOver());
+        shuffleKnights(game);
+        assertTrue(game.isThreefoldRepetition());
+        assertTrue(game.isGameOver());
+        assertEquals("Draw", game.getWinner());
+    }
+
+    @Test
+    public void threefoldRepetition_ignoresPositionsBeforePawnMove() {
+        ChessGame game = new ChessGame();
+        shuffleKnights(game);
+        play(game, 6, 4, 4, 4); // e4
+        play(game, 1, 4, 3, 4); // e5
+        shuffleKnights(game);
+        assertFalse(game.isThreefoldRepetition());
+    }
+
+    @Test
+    public void threefoldRepetition_leavesTheGameAsItWas() {
+        ChessGame game = new ChessGame();
+        shuffleKnights(game);
+        play(game, 7, 6, 5, 5); // Nf3
+        String fen = game.getFen();
+        assertFalse(game.isThreefoldRepetition());
+        assertEquals(fen, game.getFen());
+        game.seekTo(2);
+        String shown = game.getFen();
+        assertFalse(game.isThreefoldRepetition());
+        assertEquals(shown, game.getFen());
+        game.exitNavigation();
+        assertEquals(fen, game.getFen());
+        play(game, 0, 6, 2, 5); // Nf6
+        assertFalse(game.isThreefoldRepetition());
+        play(game, 5, 5, 7, 6); // Ng1
+        play(game, 2, 5, 0, 6); // Ng8
+        assertTrue(game.isThreefoldRepetition());
+    }
+
+    @Test
+    public void ordinaryOpening_isNotADraw() {
+        ChessGame game = new ChessGame();
+        play(game, 6, 4, 4, 4); // e4
+        play(game, 1, 4, 3, 4); // e5
+        play(game, 7, 6, 5, 5); // Nf3
+        play(game, 0, 1, 2, 2); // Nc6
+        play(game, 7, 5, 4, 2); // Bc4
+        play(game, 0, 6, 2, 5); // Nf6
+        play(game, 6, 3, 5, 3); // d3
+        play(game, 0, 5, 1, 4); // Be7
+        assertFalse(game.isGameOver());
+    }
+
+    @Test
+    public void foolsMate_isCheckmate() {
+        ChessGame game = new ChessGame();
+        play(game, 6, 5, 5, 5); // f3
+        play(game, 1, 4, 3, 4); // e5
+        play(game, 6, 6, 4, 6); // g4
+        play(game, 0, 3, 4, 7); // Qh4#
+        assertEquals(GameOutcome.CHECKMATE, game.getOutcome());
+        assertTrue(game.isGameOver());
+        assertEquals("Black", game.getWinner());
+    }
+
+    @Test
+    public void queensideCastling_isRefusedInOrThroughCheck() {
+        // White in check from the rook on e4, and Black passing over d8 attacked by the queen
+        ChessGame white = new ChessGame("r3k2r/8/8/8/4r3/8/8/R3K2R w KQkq - 0 1");
+        assertEquals(0, white.getCastlingMoves(7, 4).size());
+        ChessGame black = new ChessGame("r3k2r/8/8/8/8/8/8/R2QK2R b KQkq - 0 1");
+        assertEquals(1, black.getCastlingMoves(0, 4).size());
+        assertEquals(Move.KING_CASTLE, Move.flags(black.getCastlingMoves(0, 4).get(0)));
+
+        Position position = Position.fromFen("r3k2r/8/8/8/8/8/8/R2QK2R b KQkq - 0 1");
+        assertFalse(ChessRules.canCastle(position, Piece.Color.BLACK, false));
+        assertFalse(ChessRules.canCastle(position.toBoard(), Piece.Color.BLACK, false));
+        assertTrue(ChessRules.canCastle(position.toBoard(), Piece.Color.BLACK, true));
+        position = Position.fromFen("r3k2r/8/8/8/4r3/8/8/R3K2R w KQkq - 0 1");
+        assertFalse(ChessRules.canCastle(position.toBoard(), Piece.Color.WHITE, false));
+    }
+
+    @Test
+    public void castling_needsTheKingAtHomeAndTheRight() {
+        // Rooks and queens that can reach g1/c1 or g8/c8 from the king's square are not castling
+        String[] fens = {
+            "k7/8/8/8/8/8/8/K3R3 w - - 0 1",
+            "k7/8/8/8/8/8/8/K3Q3 w - - 0 1",
+            "4r3/8/8/8/8/8/8/K6k b - - 0 1",
+        };
+        for (String fen : fens) {
+            Position position = Position.fromFen(fen);
+            Piece.Color side = position.getSideToMove();
+            assertFalse(fen, ChessRules.canCastle(position, side, true));
+            assertFalse(fen, ChessRules.canCastle(position, side, false));
+        }
+        // A king off its home square, next to a rook that can reach c1
+        ChessGame game = new ChessGame("k7/8/8/8/8/8/8/4RK2 w - - 0 1");
+        assertEquals(0, game.getCastlingMoves(7, 5).size());
+        // Pieces standing right but with the rights given up
+        Position noRights = Position.fromFen("r3k2r/8/8/8/8/8/8/R3K2R w - - 0 1");
+        assertFalse(ChessRules.canCastle(noRights, Piece.Color.WHITE, true));
+        assertFalse(ChessRules.canCastle(noRights, Piece.Color.WHITE, false));
+        assertTrue(ChessRules.canCastle(Position.fromFen("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1"),
+                Piece.Color.WHITE, false));
+    }
+
+    @Test
+    public void checkTests_leaveTheCallersBoardAlone() {
+        Piece[][] board = Position.fromFen("4k3/8/8/8/8/8/4R3/4K3 w - - 0 1").toBoard();
+        Piece[][] before = Position.fromFen("4k3/8/8/8/8/8/4R3/4K3 w - - 0 1").toBoard();
+        assertFalse(ChessRules.wouldPutKingInCheck(board, 6, 4, 6, 0, true));
+        assertFalse(ChessRules.wouldBeInCheck(board, 7, 4, 7, 3, Piece.Color.WHITE));
+        assertTrue(Arrays.deepEquals(before, board));
+    }
+
+    @Test
+    public void outcome_detectsEachDraw() {
+        assertEquals(GameOutcome.STALEMATE, new ChessGame("7k/5Q2/6K1/8/8/8/8/8 b - - 0 1").getOutcome());
+        assertEquals(GameOutcome.FIFTY_MOVE_RULE, new ChessGame("7k/8/6K1/8/8/8/8/R7 b - - 100 90").getOutcome());
+        assertEquals(GameOutcome.INSUFFICIENT_MATERIAL, new ChessGame("7k/8/6K1/8/8/8/8/B7 b - - 0 1").getOutcome());
+        assertEquals(GameOutcome.INSUFFICIENT_MATERIAL, new ChessGame("7k/8/6K1/8/8/8/1b6/B7 b - - 0 1").getOutcome());
+        assertEquals(GameOutcome.ONGOING, new ChessGame("7k/8/6K1/8/8/8/8/BB6 b - - 0 1").getOutcome());
+        assertEquals(GameOutcome.ONGOING, new ChessGame().getOutcome());
+    }
+
+    @Test
+    public void navigation_stepsThroughHistoryAndBack() {
+        ChessGame game = new ChessGame();
+        String start = game.getFen();
+        play(game, 6, 4, 4, 4);
+        String afterE4 = game.getFen();
+        play(game, 1, 4, 3, 4);
+        play(game, 7, 6, 5, 5);
+        String current = game.getFen();
+
+        assertFalse(game.canGoForward());
+        game.goBack();
+        game.goBack();
+        assertTrue(game.isNavigating());
+        assertEquals(afterE4, game.getFen());
+        assertEquals(Piece.Color.BLACK, game.getNavigationPlayer());
+        game.goBack();
+        assertEquals(start, game.getFen());
+        assertFalse(game.canGoBack());
+
+        game.goForward();
+        assertEquals(afterE4, game.getFen());
+        assertEquals(Piece.Color.BLACK, game.getNavigationPlayer());
+        game.exitNavigation();
+        assertFalse(game.isNavigating());
+        assertEquals(current, game.getFen());
+        assertEquals(Piece.Color.BLACK, game.getCurrentPlayer());
+        assertEquals(3, game.getMoveHistory().size());
+    }
+
+    // Plays up to the given number of plies, picking a varied legal move each turn, and
+    // returns the FEN after each ply (index 0 is the starting position)
+    private static List<String> playVariedGame(ChessGame game, int plies) {
+        List<String> fens = new ArrayList<>();
+        fens.add(game.getFen());
+        for (int ply = 0; ply < plies && !game.isGameOver(); ply++) {
+            List<int[]> moves = new ArrayList<>();
+            for (int sq = 0; sq < 64; sq++) {
+                Piece piece = game.getPiece(Position.row(sq), Position.col(sq));
+                if (piece != null && piece.getColor() == game.getCurrentPlayer()) {
+                    MoveList targets = game.getValidMoves(Position.row(sq), Position.col(sq));
+                    for (int i = 0; i < targets.size(); i++) {
+                        moves.add(new int[] {sq, Move.to(targets.get(i))});
+                    }
+                }
+            }
+            int[] move = moves.get((ply * 7 + 3) % moves.size());
+            play(game, Position.row(move[0]), Position.col(move[0]), Position.row(move[1]), Position.col(move[1]));
+            fens.add(game.getFen());
+        }
+        return fens;
+    }
+
+    @Test
+    public void seekTo_reachesEveryPlyFromCheckpoints() {
+        ChessGame game = new ChessGame();
+        game.setCheckpointInterval(4);
+        List<String> fens = playVariedGame(game, 60);
+        int last = fens.size() - 1;
+
+        int[] targets = {0, last, 3, 17, 16, last - 1, 5, 4, 1, last / 2, last};
+        for (int ply : targets) {
+            game.seekTo(ply);
+            assertEquals("ply " + ply, fens.get(ply), game.getFen());
+        }
+        // Step back across a checkpoint the undo stack no longer covers
+        game.seekTo(13);
+        for (int ply = 12; ply >= 0; ply--) {
+            game.goBack();
+            assertEquals("ply " + ply, fens.get(ply), game.getFen());
+        }
+
+        game.setCheckpointInterval(7);
+        game.seekTo(22);
+        assertEquals(fens.get(22), game.getFen());
+        game.exitNavigation();
+        assertEquals(fens.get(last), game.getFen());
+        assertEquals(last, game.getMoveHistory().size());
+    }
+}
@@ -0,0 +1,36 @@
+package com.bhram.chess2;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the material signature, phase and draw classification read from a position's material key.
+ */
+public class MaterialTest {
+
+    @Test
+    public void signature_listsStrongestPiecesFirst() {
+        assertEquals("KQRRBBNNPPPPPPPPvKQRRBBNNPPPPPPPP", Material.signature(Position.fromFen(Position.START_FEN).getMaterialKey()));
+        assertEquals("KBNvK", Material.signature(Position.fromFen("7k/8/8/8/8/8/8/KBN5 w - - 0 1").getMaterialKey()));
+        assertEquals("KvKRP", Material.signature(Position.fromFen("7k/6pr/8/8/8/8/8/K7 w - - 0 1").getMaterialKey()));
+    }
+
+    @Test
+    public void phase_fallsAsPiecesComeOff() {
+        assertEquals(Material.MAX_PHASE, Material.phase(Position.fromFen(Position.START_FEN).getMaterialKey()));
+        assertEquals(0, Material.phase(Position.fromFen("7k/6p1/8/8/8/8/1P6/K7 w - - 0 1").getMaterialKey()));
+        assertEquals(6, Material.phase(Position.fromFen("7k/6r1/8/8/8/8/1P6/KQ6 w - - 0 1").getMaterialKey()));
+    }
+
+    @Test
+    public void counts_followCapturesAndPromotions() {
+        Position position = Position.fromFen("r3k3/1P6/8/8/8/8/8/4K3 w - - 0 1");
+        long before = position.getMaterialKey();
+        position.makeMove(Move.promotion(Position.square(1, 1), Position.square(0, 0), Piece.Type.QUEEN, true));
+        assertEquals("KQvK", Material.signature(position.getMaterialKey()));
+        assertTrue(Material.isTablebaseCandidate(position.getMaterialKey()));
+        position.unmakeMove();
+        assertEquals(before, position.getMaterialKey());
+    }
+}
@@ -0,0 +1,106 @@
+package com.bhram.chess2;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the move generator against the published perft counts of the reference positions.
+ */
+public class PerftTest {
+
+    // Deepest depth checked per reference position, kept small enough for a quick unit test run
+    private static final int[] TEST_DEPTHS = {4, 3, 4, 3, 3, 3};
+
+    @Test
+    public void referencePositions_matchKnownCounts() {
+        Perft perft = new Perft();
+        for (int i = 0; i < Perft.REFERENCE_FENS.length; i++) {
+            Position position = Position.fromFen(Perft.REFERENCE_FENS[i]);
+            for (int depth = 1; depth <= TEST_DEPTHS[i]; depth++) {
+                assertEquals(Perft.REFERENCE_FENS[i] + " depth " + depth,
+                        Perft.REFERENCE_COUNTS[i][depth - 1], perft.count(position, depth));
+            }
+            assertEquals(Perft.REFERENCE_FENS[i], position.toFen());
+        }
+    }
+
+    @Test
+    public void divide_sumsToCount() {
+        Perft perft = new Perft();
+        Position position = Position.fromFen(Perft.REFERENCE_FENS[1]);
+        Map<String, Long> divide = perft.divide(position, 3);
+        assertEquals(48, divide.size());
+        long total = 0;
+        for (long nodes : divide.values()) {
+            total += nodes;
+        }
+        assertEquals(97862, total);
+    }
+
+    @Test
+    public void parallelAndHashedCounts_matchSequential() {
+        Perft hashed = new Perft(4);
+        for (int i = 0; i < Perft.REFERENCE_FENS.length; i++) {
+            Position position = Position.fromFen(Perft.REFERENCE_FENS[i]);
+            long expected = Perft.REFERENCE_COUNTS[i][2];
+            assertEquals(expected, new Perft().countParallel(position, 3));
+            assertEquals(expected, hashed.count(position, 3));
+            assertEquals(expected, hashed.count(position, 3));
+        }
+    }
+
+    @Test
+    public void legalCaptures_matchCapturesAndPromotionsAmongLegalMoves() {
+        int[] all = new int[MoveGenerator.MAX_MOVES];
+        int[] captures = new int[MoveGenerator.MAX_MOVES];
+        for (String fen : Perft.REFERENCE_FENS) {
+            Position position = Position.fromFen(fen);
+            Set<Integer> expected = new HashSet<>();
+            int count = MoveGenerator.generateLegalMoves(position, position.getSideToMove(), all);
+            for (int i = 0; i < count; i++) {
+                if (Move.isCapture(all[i]) || Move.isPromotion(all[i])) {
+                    expected.add(all[i]);
+                }
+            }
+            Set<Integer> actual = new HashSet<>();
+            int captureCount = MoveGenerator.generateLegalCaptures(position, position.getSideToMove(), captures);
+            for (int i = 0; i < captureCount; i++) {
+                actual.add(captures[i]);
+            }
+            assertEquals(fen, expected, actual);
+            assertEquals(fen, expected.size(), captureCount);
+        }
+    }
+
+    @Test
+    public void isLegal_agreesWithGeneratedMoves() {
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        for (String fen : Perft.REFERENCE_FENS) {
+            Position position = Position.fromFen(fen);
+            Piece.Color side = position.getSideToMove();
+            int count = MoveGenerator.generateLegalMoves(position, side, moves);
+            Set<Integer> legal = new HashSet<>();
+            for (int i = 0; i < count; i++) {
+                legal.add(Move.from(moves[i]) * 64 + Move.to(moves[i]));
+            }
+            for (int from = 0; from < 64; from++) {
+                for (int to = 0; to < 64; to++) {
+                    assertEquals(fen + " " + from + "-" + to, legal.contains(from * 64 + to),
+                            MoveGenerator.isLegal(position, side, from, to));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void fen_roundTrips() {
+        for (String fen : Perft.REFERENCE_FENS) {
+            assertEquals(fen, Position.fromFen(fen).toFen());
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.bhram.chess2;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that the piece lists, king squares, material counts and piece-square scores Position keeps stay in step with its bitboards.
+ */
+public class PositionTest {
+
+    @Test
+    public void pieceListsAndKings_matchBitboardsThroughMoves() {
+        for (String fen : Perft.REFERENCE_FENS) {
+            Position position = Position.fromFen(fen);
+            checkTree(position, 3);
+        }
+    }
+
+    @Test
+    public void copy_keepsPieceLists() {
+        Position original = Position.fromFen(Perft.REFERENCE_FENS[1]);
+        Position copy = new Position(original);
+        assertConsistent(copy);
+        assertEquals(original.toFen(), copy.toFen());
+        assertEquals(original.getKey(), copy.getKey());
+        assertEquals(original.getMiddlegameScore(), copy.getMiddlegameScore());
+        assertEquals(original.getEndgameScore(), copy.getEndgameScore());
+    }
+
+    @Test
+    public void copy_remembersRepetitionsSinceLastIrreversibleMove() {
+        Position original = Position.fromFen("7k/8/8/8/3K4/8/8/R7 w - - 0 1");
+        // Rook and king out and back twice: the start position recurs twice
+        for (int i = 0; i < 2; i++) {
+            original.makeMove(Move.encode(Position.square(7, 0), Position.square(1, 0), Move.QUIET));
+            original.makeMove(Move.encode(Position.square(0, 7), Position.square(0, 6), Move.QUIET));
+            original.makeMove(Move.encode(Position.square(1, 0), Position.square(7, 0), Move.QUIET));
+            original.makeMove(Move.encode(Position.square(0, 6), Position.square(0, 7), Move.QUIET));
+        }
+        assertEquals(2, original.repetitionCount());
+        Position copy = new Position(original);
+        assertEquals(0, copy.getPly());
+        assertEquals(2, copy.repetitionCount());
+        copy.makeMove(Move.encode(Position.square(7, 0), Position.square(1, 0), Move.QUIET));
+        assertEquals(2, copy.repetitionCount());
+
+        Position reused = new Position();
+        reused.copyFrom(copy);
+        assertEquals(2, reused.repetitionCount());
+        reused.setFromFen(Position.START_FEN);
+        assertEquals(0, reused.repetitionCount());
+    }
+
+    private static void checkTree(Position position, int depth) {
+        assertConsistent(position);
+        if (depth == 0) {
+            return;
+        }
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = MoveGenerator.generateLegalMoves(position, position.getSideToMove(), moves);
+        for (int i = 0; i < count; i++) {
+            position.makeMove(moves[i]);
+            checkTree(position, depth - 1);
+            position.unmakeMove();
+        }
+    }
+
+    private static void assertConsistent(Position position) {
+        for (Piece.Color color : Piece.Color.values()) {
+            long listed = 0L;
+            for (int i = 0; i < position.pieceCount(color); i++) {
+                int square = position.pieceSquare(color, i);
+                assertEquals(color, position.getPiece(square).getColor());
+                listed |= Position.bit(square);
+            }
+            assertEquals(position.pieces(color), listed);
+            assertEquals(Long.bitCount(listed), position.pieceCount(color));
+            assertEquals(Long.numberOfTrailingZeros(position.pieces(color, Piece.Type.KING)), position.kingSquare(color));
+            for (Piece.Type type : Piece.Type.values()) {
+                assertEquals(Long.bitCount(position.pieces(color, type)), position.count(color, type));
+            }
+        }
+        assertEquals(PieceSquareTables.middlegame(position), position.getMiddlegameScore());
+        assertEquals(PieceSquareTables.endgame(position), position.getEndgameScore());
+    }
+}
@@ -0,0 +1,120 @@
+package com.bhram.chess2;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks static exchange evaluation against capture sequences worked out by hand.
+ */
+public class StaticExchangeTest {
+
+    private static int square(String name) {
+        return Position.square('8' - name.charAt(1), name.charAt(0) - 'a');
+    }
+
+    private static int capture(String from, String to) {
+        return Move.encode(square(from), square(to), Move.CAPTURE);
+    }
+
+    @Test
+    public void pawnTakingDefendedKnight_winsKnightForPawn() {
+        Position position = Position.fromFen("4k3/8/2p5/3n4/4P3/8/8/4K3 w - - 0 1");
+        assertEquals(220, StaticExchange.evaluate(position, capture("e4", "d5")));
+        assertTrue(StaticExchange.isAtLeast(position, capture("e4", "d5"), 220));
+        assertFalse(StaticExchange.isAtLeast(position, capture("e4", "d5"), 221));
+    }
+
+    @Test
+    public void queenTakingDefendedPawn_losesQueen() {
+        Position position = Position.fromFen("4k3/8/2p5/3p4/8/8/8/3QK3 w - - 0 1");
+        assertEquals(-800, StaticExchange.evaluate(position, capture("d1", "d5")));
+        assertFalse(StaticExchange.isAtLeast(position, capture("d1", "d5"), 0));
+    }
+
+    @Test
+    public void rookBehindRook_joinsTheExchange() {
+        Position position = Position.fromFen("3rk3/8/8/3p4/8/8/3R4/3RK3 w - - 0 1");
+        assertEquals(100, StaticExchange.evaluate(position, capture("d2", "d5")));
+        assertTrue(StaticExchange.isAtLeast(position, capture("d2", "d5"), 100));
+
+        Position single = Position.fromFen("3rk3/8/8/3p4/8/8/3R4/4K3 w - - 0 1");
+        assertEquals(-400, StaticExchange.evaluate(single, capture("d2", "d5")));
+        assertFalse(StaticExchange.isAtLeast(single, capture("d2", "d5"), 1));
+    }
+
+    @Test
+    public void king_onlyRecapturesWhenNothingTakesItBack() {
+        Position defended = Position.fromFen("8/8/8/4k3/3p4/8/8/3RK3 w - - 0 1");
+        assertEquals(-400, StaticExchange.evaluate(defended, capture("d1", "d4")));
+
+        Position covered = Position.fromFen("8/8/8/4k3/3p4/8/3R4/3RK3 w - - 0 1");
+        assertEquals(100, StaticExchange.evaluate(covered, capture("d2", "d4")));
+        assertTrue(StaticExchange.isAtLeast(covered, capture("d2", "d4"), 100));
+    }
+
+    @Test
+    public void hangingPieces_areThoseLostToTheirCheapestAttacker() {
+        assertTrue(StaticExchange.isHanging(Position.fromFen("4k3/8/8/3n4/8/8/8/3RK3 b - - 0 1"), square("d5")));
+        assertFalse(StaticExchange.isHanging(Position.fromFen("4k3/8/4p3/3n4/8/8/8/3RK3 b - - 0 1"), square("d5")));
+        assertTrue(StaticExchange.isHanging(Position.fromFen("4k3/8/4p3/3n4/4P3/8/8/4K3 b - - 0 1"), square("d5")));
+        assertFalse(StaticExchange.isHanging(Position.fromFen("4k3/8/8/8/8/8/8/4K3 w - - 0 1"), square("d5")));
+    }
+
+    @Test
+    public void exchangeStoppedEarly_doesNotCountTheUnplayedCapture() {
+        // Bxg4 fxg4 Nxg4 and Black stops: Bxg4 would only lose the bishop for the knight
+        Position position = Position.fromFen("rnbqkb1r/1p2ppp1/p1p2n1p/3p4/2P3P1/5P1B/PP1PPK1P/RNB1Q1NR b kq - 1 6");
+        assertEquals(-230, StaticExchange.evaluate(position, capture("c8", "g4")));
+        assertTrue(StaticExchange.isAtLeast(position, capture("c8", "g4"), -230));
+        assertFalse(StaticExchange.isAtLeast(position, capture("c8", "g4"), -229));
+    }
+
+    @Test
+    public void thresholdCheck_agreesWithFullEvaluation() {
+        String[] fens = {
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+            "rnbqkb1r/1p2ppp1/p1p2n1p/3p4/2P3P1/5P1B/PP1PPK1P/RNB1Q1NR b kq - 1 6",
+        };
+        for (String fen : fens) {
+            assertAgreement(Position.fromFen(fen));
+        }
+    }
+
+    @Test
+    public void thresholdCheck_agreesWithFullEvaluationThroughRandomGames() {
+        Random random = new Random(21);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        for (int game = 0; game < 40; game++) {
+            Position position = Position.fromFen(Position.START_FEN);
+            for (int ply = 0; ply < 120; ply++) {
+                int count = MoveGenerator.generateLegalMoves(position, position.getSideToMove(), moves);
+                if (count == 0) {
+                    break;
+                }
+                assertAgreement(position);
+                position.makeMove(moves[random.nextInt(count)]);
+            }
+        }
+    }
+
+    // Every legal move's exchange value passes exactly the thresholds isAtLeast says it does
+    private static void assertAgreement(Position position) {
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int[] thresholds = {-900, -400, -230, -100, 0, 1, 100, 220, 400};
+        int count = MoveGenerator.generateLegalMoves(position, position.getSideToMove(), moves);
+        for (int i = 0; i < count; i++) {
+            int value = StaticExchange.evaluate(position, moves[i]);
+            for (int threshold : thresholds) {
+                assertEquals(position.toFen() + " " + Move.toString(moves[i]) + " " + threshold,
+                        value >= threshold, StaticExchange.isAtLeast(position, moves[i], threshold));
+            }
+            assertTrue(StaticExchange.isAtLeast(position, moves[i], value));
+            assertFalse(StaticExchange.isAtLeast(position, moves[i], value + 1));
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.bhram.chess2;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that the incrementally updated position key always matches one computed from scratch.
+ */
+public class ZobristTest {
+
+    @Test
+    public void incrementalKey_matchesFullRecompute() {
+        for (String fen : Perft.REFERENCE_FENS) {
+            Position position = Position.fromFen(fen);
+            long rootKey = position.getKey();
+            assertEquals(Zobrist.compute(position), rootKey);
+            checkTree(position, 3);
+            assertEquals(rootKey, position.getKey());
+        }
+    }
+
+    @Test
+    public void transpositions_haveEqualKeys() {
+        ChessGame first = new ChessGame();
+        play(first, 7, 6, 5, 5); // Nf3
+        play(first, 0, 6, 2, 5); // Nf6
+        play(first, 7, 1, 5, 2); // Nc3
+        ChessGame second = new ChessGame();
+        play(second, 7, 1, 5, 2); // Nc3
+        play(second, 0, 6, 2, 5); // Nf6
+        play(second, 7, 6, 5, 5); // Nf3
+        assertEquals(first.getPositionKey(), second.getPositionKey());
+        assertNotEquals(new ChessGame().getPositionKey(), first.getPositionKey());
+    }
+
+    @Test
+    public void pawnKey_onlyChangesWithPawns() {
+        ChessGame game = new ChessGame();
+        long start = Position.fromFen(Position.START_FEN).getPawnKey();
+        play(game, 7, 6, 5, 5); // Nf3
+        assertEquals(start, game.copyPosition().getPawnKey());
+        play(game, 1, 4, 3, 4); // e5
+        assertNotEquals(start, game.copyPosition().getPawnKey());
+    }
+
+    @Test
+    public void enPassantFile_onlyCountsWhenCapturable() {
+        // After 1.e4 no black pawn can take en passant, so the skipped square does not matter
+        ChessGame game = new ChessGame();
+        play(game, 6, 4, 4, 4);
+        assertEquals(Position.fromFen("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq - 0 1").getKey(),
+                game.getPositionKey());
+
+        Position capturable = Position.fromFen("rnbqkbnr/ppp1pppp/8/8/3pP3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 3");
+        Position notCapturable = Position.fromFen("rnbqkbnr/ppp1pppp/8/8/3pP3/8/PPPP1PPP/RNBQKBNR b KQkq - 0 3");
+        assertNotEquals(capturable.getKey(), notCapturable.getKey());
+    }
+
+    private static void checkTree(Position position, int depth) {
+        if (depth == 0) {
+            return;
+        }
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = MoveGenerator.generateLegalMoves(position, position.getSideToMove(), moves);
+        for (int i = 0; i < count; i++) {
+            long before = position.getKey();
+            long pawnsBefore = position.getPawnKey();
+            position.makeMove(moves[i]);
+            assertEquals(Move.toString(moves[i]), Zobrist.compute(position), position.getKey());
+            assertEquals(Move.toString(moves[i]), Zobrist.computePawns(position), position.getPawnKey());
+            checkTree(position, depth - 1);
+            position.unmakeMove();
+            assertEquals(before, position.getKey());
+            assertEquals(pawnsBefore, position.getPawnKey());
+        }
+    }
+
+    private static void play(ChessGame game, int fromRow, int fromCol, int toRow, int toCol) {
+        assertTrue(game.selectPiece(fromRow, fromCol));
+        assertTrue(game.movePiece(toRow, toCol));
+    }
+}
@@ -0,0 +1,102 @@
+package com.bhram.chess2.engine;
+
+import com.bhram.chess2.ChessGame;
+import com.bhram.chess2.Move;
+import com.bhram.chess2.Position;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that the engine finds forced wins, respects its limits and can be stopped.
+ */
+public class EngineTest {
+
+    private static String bestMove(String fen, int depth) {
+        return Move.toString(new Engine().search(Position.fromFen(fen), SearchLimits.depth(depth)).getBestMove());
+    }
+
+    @Test
+    public void findsMateInOne() {
+        SearchResult result = new Engine().search(Position.fromFen("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1"), SearchLimits.depth(4));
+        assertEquals("a1a8", Move.toString(result.getBestMove()));
+        assertTrue(result.isMate());
+        assertEquals(1, result.getMateIn());
+    }
+
+    @Test
+    public void findsMateInTwo() {
+        // 1. Kb6 Kb8 2. Rh8# or 1. Kc7 Ka7 2. Ra1#
+        SearchResult result = new Engine().search(Position.fromFen("k7/8/2K5/8/8/8/8/7R w - - 0 1"), SearchLimits.depth(5));
+        assertEquals(2, result.getMateIn());
+    }
+
+    @Test
+    public void winsHangingQueen() {
+        assertEquals("d1d8", bestMove("3q2k1/5ppp/8/8/8/8/5PPP/3R2K1 w - - 0 1", 3));
+    }
+
+    @Test
+    public void gameHistory_keepsEngineOutOfRepetitionDraws() {
+        String fen = "7k/8/8/8/3K4/8/8/R7 w - - 0 1";
+        // Without history the rook lift is the engine's choice
+        assertEquals("a1a7", bestMove(fen, 4));
+
+        // Once the position after it has already occurred, playing it again would repeat
+        ChessGame game = new ChessGame(fen);
+        for (String move : new String[] {"a1a7", "h8g8", "a7a1", "g8h8"}) {
+            assertTrue(move, game.playMove(quiet(move)));
+        }
+        SearchResult result = new Engine().search(game, SearchLimits.depth(4));
+        assertNotEquals("a1a7", Move.toString(result.getBestMove()));
+        assertTrue(result.getScore() > 0);
+    }
+
+    private static int quiet(String move) {
+        return Move.encode(square(move.substring(0, 2)), square(move.substring(2, 4)), Move.QUIET);
+    }
+
+    private static int square(String name) {
+        return Position.square('8' - name.charAt(1), name.charAt(0) - 'a');
+    }
+
+    @Test
+    public void nodeLimit_stopsSearch() {
+        SearchResult result = new Engine().search(Position.fromFen(Position.START_FEN), SearchLimits.nodes(20_000));
+        assertNotEquals(Move.NONE, result.getBestMove());
+        assertTrue(result.getNodes() < 40_000);
+    }
+
+    @Test
+    public void stop_endsInfiniteSearchFromAnotherThread() throws InterruptedException {
+        Engine engine = new Engine();
+        SearchResult[] result = new SearchResult[1];
+        Thread thread = new Thread(() -> result[0] = engine.search(new ChessGame(), SearchLimits.infinite()));
+        thread.start();
+        Thread.sleep(200);
+        engine.stop();
+        thread.join(5000);
+        assertFalse(thread.isAlive());
+        assertTrue(result[0].getDepth() >= 1);
+        assertEquals(result[0].getBestMove(), result[0].getPrincipalVariation()[0]);
+    }
+
+    @Test
+    public void noLegalMoves_returnsNoMove() {
+        SearchResult mated = new Engine().search(Position.fromFen("R5k1/5ppp/8/8/8/8/8/6K1 b - - 0 1"), SearchLimits.depth(3));
+        assertEquals(Move.NONE, mated.getBestMove());
+        assertEquals(-Search.MATE, mated.getScore());
+    }
+
+    @Test
+    public void helperThreads_shareTableAndFindSameMate() {
+        Engine engine = new Engine(4, 4);
+        assertEquals(4, engine.getThreads());
+        SearchResult result = engine.search(Position.fromFen("k7/8/2K5/8/8/8/8/7R w - - 0 1"), SearchLimits.depth(6));
+        assertEquals(2, result.getMateIn());
+        SearchResult deeper = engine.search(Position.fromFen(Position.START_FEN), SearchLimits.depth(5));
+        assertEquals(5, deeper.getDepth());
+        assertTrue(deeper.getNodes() > 0);
+    }
+}
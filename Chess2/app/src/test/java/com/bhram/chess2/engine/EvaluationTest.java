@@ -0,0 +1,69 @@
+package com.bhram.chess2.engine;
+
+import com.bhram.chess2.Perft;
+import com.bhram.chess2.Position;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that the evaluation is symmetric between the colors and that its incremental scores survive a search.
+ */
+public class EvaluationTest {
+
+    // The same position with the board flipped top to bottom and the colors swapped
+    private static String mirror(String fen) {
+        String[] fields = fen.split(" ");
+        String[] ranks = fields[0].split("/");
+        StringBuilder board = new StringBuilder();
+        for (int i = ranks.length - 1; i >= 0; i--) {
+            for (char c : ranks[i].toCharArray()) {
+                board.append(Character.isUpperCase(c) ? Character.toLowerCase(c) : Character.toUpperCase(c));
+            }
+            if (i > 0) {
+                board.append('/');
+            }
+        }
+        StringBuilder castling = new StringBuilder();
+        for (char c : fields[2].toCharArray()) {
+            castling.append(c == '-' ? c : Character.isUpperCase(c) ? Character.toLowerCase(c) : Character.toUpperCase(c));
+        }
+        String enPassant = fields[3].equals("-") ? "-" : fields[3].charAt(0) + String.valueOf((char) ('9' - fields[3].charAt(1) + '0'));
+        return board + " " + (fields[1].equals("w") ? "b" : "w") + " " + castling + " " + enPassant + " " + fields[4] + " " + fields[5];
+    }
+
+    @Test
+    public void startPosition_isOnlyWorthTheTempo() {
+        assertEquals(Evaluation.evaluate(Position.fromFen(Position.START_FEN)),
+                Evaluation.evaluate(Position.fromFen(mirror(Position.START_FEN))));
+        assertEquals(0, Position.fromFen(Position.START_FEN).getMiddlegameScore());
+        assertEquals(0, Position.fromFen(Position.START_FEN).getEndgameScore());
+    }
+
+    @Test
+    public void mirroredPositions_scoreTheSameForTheSideToMove() {
+        for (String fen : Perft.REFERENCE_FENS) {
+            assertEquals(fen, Evaluation.evaluate(Position.fromFen(fen)), Evaluation.evaluate(Position.fromFen(mirror(fen))));
+        }
+    }
+
+    @Test
+    public void endgame_prefersAdvancedPawnsAndCentralKing() {
+        int advanced = Evaluation.evaluate(Position.fromFen("8/8/1P6/8/3K4/8/8/7k w - - 0 1"));
+        int back = Evaluation.evaluate(Position.fromFen("8/8/8/8/8/8/1P6/K6k w - - 0 1"));
+        assertTrue(advanced > back);
+    }
+
+    @Test
+    public void verifyingSearch_findsNoDrift() {
+        Evaluation.setVerifying(true);
+        try {
+            for (String fen : Perft.REFERENCE_FENS) {
+                new Engine().search(Position.fromFen(fen), SearchLimits.depth(3));
+            }
+        } finally {
+            Evaluation.setVerifying(false);
+        }
+    }
+}
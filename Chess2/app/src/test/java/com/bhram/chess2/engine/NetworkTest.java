@@ -0,0 +1,133 @@
+package com.bhram.chess2.engine;
+
+import com.bhram.chess2.Move;
+import com.bhram.chess2.MoveGenerator;
+import com.bhram.chess2.Perft;
+import com.bhram.chess2.Position;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks network loading and that the incrementally updated sums match a rebuild, using small random networks.
+ */
+public class NetworkTest {
+
+    private static final int HIDDEN = 8;
+
+    private static byte[] randomNetworkFile(long seed) {
+        Random random = new Random(seed);
+        ByteBuffer buffer = ByteBuffer.allocate(8 + 2 * HIDDEN + 2 * Network.INPUTS * HIDDEN + 2 * HIDDEN + 4)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put(new byte[] {'C', 'N', 'N', '1'});
+        buffer.putInt(HIDDEN);
+        for (int i = 0; i < HIDDEN; i++) {
+            buffer.putShort((short) random.nextInt(64));
+        }
+        for (int i = 0; i < Network.INPUTS * HIDDEN; i++) {
+            buffer.putShort((short) (random.nextInt(33) - 16));
+        }
+        for (int i = 0; i < 2 * HIDDEN; i++) {
+            buffer.put((byte) (random.nextInt(129) - 64));
+        }
+        buffer.putInt(random.nextInt(1000) - 500);
+        return buffer.array();
+    }
+
+    private static Network randomNetwork(long seed) throws IOException {
+        return Network.load(new ByteArrayInputStream(randomNetworkFile(seed)));
+    }
+
+    @Test
+    public void load_readsHiddenSizeAndRejectsOtherFiles() throws IOException {
+        assertEquals(HIDDEN, randomNetwork(1).getHiddenSize());
+        byte[] truncated = new byte[100];
+        System.arraycopy(randomNetworkFile(1), 0, truncated, 0, truncated.length);
+        try {
+            Network.load(new ByteArrayInputStream(truncated));
+            fail();
+        } catch (IOException expected) {
+            // Wrong size for its hidden layer
+        }
+        byte[] padded = new byte[randomNetworkFile(1).length + 1];
+        System.arraycopy(randomNetworkFile(1), 0, padded, 0, padded.length - 1);
+        try {
+            Network.load(new ByteArrayInputStream(padded));
+            fail();
+        } catch (IOException expected) {
+            // Bytes left over after the output bias
+        }
+        try {
+            Network.load(new ByteArrayInputStream(new byte[64]));
+            fail();
+        } catch (IOException expected) {
+            // No magic bytes
+        }
+    }
+
+    @Test
+    public void incrementalSums_matchRebuildThroughMoves() throws IOException {
+        Accumulators accumulators = new Accumulators(randomNetwork(2));
+        Evaluation.setVerifying(true);
+        try {
+            for (String fen : Perft.REFERENCE_FENS) {
+                Position position = Position.fromFen(fen);
+                accumulators.reset(position);
+                int root = accumulators.evaluate(position);
+                walk(position, accumulators, 3);
+                assertEquals(fen, root, accumulators.evaluate(position));
+            }
+        } finally {
+            Evaluation.setVerifying(false);
+        }
+    }
+
+    @Test
+    public void mirroredPositions_evaluateTheSame() throws IOException {
+        Accumulators accumulators = new Accumulators(randomNetwork(3));
+        Position white = Position.fromFen("r1bqkbnr/pppp1ppp/2n5/4p3/4P3/5N2/PPPP1PPP/RNBQKB1R w KQkq - 2 3");
+        Position black = Position.fromFen("rnbqkb1r/pppp1ppp/5n2/4p3/4P3/2N5/PPPP1PPP/R1BQKBNR b KQkq - 2 3");
+        accumulators.reset(white);
+        int whiteScore = accumulators.evaluate(white);
+        accumulators.reset(black);
+        assertEquals(whiteScore, accumulators.evaluate(black));
+    }
+
+    @Test
+    public void engineWithNetwork_searchesLegalMoves() throws IOException {
+        Engine engine = new Engine(1, 2);
+        engine.setNetwork(randomNetwork(4));
+        Position position = Position.fromFen(Perft.REFERENCE_FENS[1]);
+        SearchResult result = engine.search(position, SearchLimits.depth(3));
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = MoveGenerator.generateLegalMoves(position, position.getSideToMove(), moves);
+        boolean legal = false;
+        for (int i = 0; i < count; i++) {
+            legal |= moves[i] == result.getBestMove();
+        }
+        assertTrue(Move.toString(result.getBestMove()), legal);
+    }
+
+    private static void walk(Position position, Accumulators accumulators, int depth) {
+        accumulators.evaluate(position);
+        if (depth == 0) {
+            return;
+        }
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = MoveGenerator.generateLegalMoves(position, position.getSideToMove(), moves);
+        for (int i = 0; i < count; i++) {
+            position.makeMove(moves[i]);
+            accumulators.push(position);
+            walk(position, accumulators, depth - 1);
+            position.unmakeMove();
+            accumulators.pop();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.bhram.chess2.engine;
+
+import com.bhram.chess2.Perft;
+import com.bhram.chess2.Position;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the pawn structure terms and that the pawn table caches them by pawn key.
+ */
+public class PawnTableTest {
+
+    private static int middlegame(String fen) {
+        return PawnTable.structure(Position.fromFen(fen), false);
+    }
+
+    private static int endgame(String fen) {
+        return PawnTable.structure(Position.fromFen(fen), true);
+    }
+
+    @Test
+    public void symmetricStructure_scoresZero() {
+        assertEquals(0, middlegame(Position.START_FEN));
+        assertEquals(0, endgame(Position.START_FEN));
+        assertEquals(0, PawnTable.shield(Position.fromFen(Position.START_FEN)));
+    }
+
+    @Test
+    public void passedPawn_isWorthMoreFurtherUp() {
+        int fifth = endgame("4k3/8/8/3P4/8/8/8/4K3 w - - 0 1");
+        int seventh = endgame("4k3/3P4/8/8/8/8/8/4K3 w - - 0 1");
+        assertTrue(fifth > 0);
+        assertTrue(seventh > fifth);
+        // A black pawn in front on the next file stops it being passed
+        assertTrue(endgame("4k3/8/2p5/3P4/8/8/8/4K3 w - - 0 1") < fifth);
+    }
+
+    @Test
+    public void doubledAndIsolatedPawns_arePenalised() {
+        int healthy = endgame("4k3/8/8/8/8/8/2PP4/4K3 w - - 0 1");
+        int doubled = endgame("4k3/8/8/8/8/3P4/3P4/4K3 w - - 0 1");
+        assertTrue(doubled < healthy);
+        int isolated = endgame("4k3/p7/8/8/8/8/P7/4K3 w - - 0 1");
+        int connected = endgame("4k3/pp6/8/8/8/8/PP6/4K3 w - - 0 1");
+        assertEquals(0, isolated);
+        assertEquals(0, connected);
+        assertTrue(middlegame("4k3/pp6/8/8/8/8/P1P5/4K3 w - - 0 1") < 0);
+    }
+
+    @Test
+    public void backwardPawn_isPenalised() {
+        // c4 and e4 have left d3 behind, and e5 guards d4
+        int backward = middlegame("4k3/8/2p5/4p3/2P1P3/3P4/8/4K3 w - - 0 1");
+        int supported = middlegame("4k3/8/2p5/4p3/2P1P3/8/3P4/4K3 w - - 0 1");
+        assertTrue(backward < supported);
+    }
+
+    @Test
+    public void shield_prefersPawnsInFrontOfTheKing() {
+        int intact = PawnTable.shield(Position.fromFen("6k1/5ppp/8/8/8/8/5PPP/6K1 w - - 0 1"));
+        int broken = PawnTable.shield(Position.fromFen("6k1/5ppp/8/8/8/8/5P2/6K1 w - - 0 1"));
+        assertEquals(0, intact);
+        assertTrue(broken < 0);
+    }
+
+    @Test
+    public void probe_countsHitsForRepeatedStructures() {
+        PawnTable table = new PawnTable(1024);
+        Position position = Position.fromFen(Position.START_FEN);
+        int entry = table.probe(position);
+        assertEquals(1, table.getMisses());
+        assertEquals(entry, table.probe(position));
+        assertEquals(1, table.getHits());
+        assertEquals(PawnTable.structure(position, false), table.middlegame(entry));
+        assertEquals(PawnTable.structure(position, true), table.endgame(entry));
+        assertEquals(0.5, table.getHitRate(), 1e-9);
+    }
+
+    @Test
+    public void search_mostlyHitsAndMatchesRecompute() {
+        Engine engine = new Engine();
+        Evaluation.setVerifying(true);
+        try {
+            engine.search(Position.fromFen(Perft.REFERENCE_FENS[1]), SearchLimits.depth(4));
+        } finally {
+            Evaluation.setVerifying(false);
+        }
+        assertTrue(engine.getPawnTableProbes() > 0);
+        assertTrue(engine.getPawnTableHits() * 2 > engine.getPawnTableProbes());
+    }
+}
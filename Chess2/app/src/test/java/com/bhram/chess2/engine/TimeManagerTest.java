@@ -0,0 +1,69 @@
+package com.bhram.chess2.engine;
+
+import com.bhram.chess2.Perft;
+import com.bhram.chess2.Position;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks how clock time is turned into per-move limits and adjusted for the search's stability.
+ */
+public class TimeManagerTest {
+
+    @Test
+    public void limits_stayWithinTheRemainingTime() {
+        for (long remaining : new long[] {1, 100, 5_000, 600_000}) {
+            for (int movesToGo : new int[] {0, 1, 40}) {
+                TimeManager time = new TimeManager(remaining, 0, movesToGo);
+                assertTrue(time.getSoftMillis() > 0);
+                assertTrue(time.getSoftMillis() <= time.getHardMillis());
+                assertTrue(remaining + " " + movesToGo, time.getHardMillis() < Math.max(remaining, 2));
+            }
+        }
+        TimeManager tenMinutes = new TimeManager(600_000, 0, 0);
+        assertEquals((600_000 - TimeManager.MOVE_OVERHEAD_MILLIS) / 30, tenMinutes.getSoftMillis());
+    }
+
+    @Test
+    public void increment_addsThinkingTime() {
+        assertTrue(new TimeManager(60_000, 2_000, 0).getSoftMillis() > new TimeManager(60_000, 0, 0).getSoftMillis());
+    }
+
+    @Test
+    public void stableBestMove_shrinksAndChangingMove_stretches() {
+        TimeManager stable = new TimeManager(600_000, 0, 0);
+        for (int i = 0; i < 6; i++) {
+            stable.iterationDone(1234, 20);
+        }
+        assertTrue(stable.getAdjustedMillis() < stable.getSoftMillis());
+
+        TimeManager unstable = new TimeManager(600_000, 0, 0);
+        for (int i = 0; i < 6; i++) {
+            unstable.iterationDone(1000 + i, 20);
+        }
+        assertTrue(unstable.getAdjustedMillis() > unstable.getSoftMillis());
+        assertTrue(unstable.getAdjustedMillis() <= unstable.getHardMillis());
+
+        TimeManager dropping = new TimeManager(600_000, 0, 0);
+        dropping.iterationDone(1234, 50);
+        dropping.iterationDone(1234, 0);
+        TimeManager steady = new TimeManager(600_000, 0, 0);
+        steady.iterationDone(1234, 50);
+        steady.iterationDone(1234, 50);
+        assertTrue(dropping.getAdjustedMillis() > steady.getAdjustedMillis());
+    }
+
+    @Test
+    public void clockSearch_finishesWithinTheHardLimit() {
+        SearchLimits limits = SearchLimits.clock(2_000, 0);
+        TimeManager time = new TimeManager(limits);
+        long start = System.nanoTime();
+        SearchResult result = new Engine().search(Position.fromFen(Perft.REFERENCE_FENS[1]), limits);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000L;
+        assertTrue(result.getDepth() > 0);
+        // Some slack for the last clock check and thread scheduling
+        assertTrue(elapsedMillis + " ms", elapsedMillis < time.getHardMillis() + 200);
+    }
+}
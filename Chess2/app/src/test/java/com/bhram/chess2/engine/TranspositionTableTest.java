@@ -0,0 +1,63 @@
+package com.bhram.chess2.engine;
+
+import com.bhram.chess2.Move;
+import com.bhram.chess2.Position;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks entry packing, key verification and replacement in the transposition table.
+ */
+public class TranspositionTableTest {
+
+    private static final long KEY = 0x123456789ABCDEF1L;
+
+    @Test
+    public void storedEntry_unpacksToSameFields() {
+        TranspositionTable table = new TranspositionTable(1);
+        table.newSearch();
+        int move = Move.encode(52, 36, Move.DOUBLE_PAWN_PUSH);
+        table.store(KEY, move, -31990, 17, TranspositionTable.BOUND_LOWER);
+        long entry = table.probe(KEY);
+        assertEquals(move, TranspositionTable.move(entry));
+        assertEquals(-31990, TranspositionTable.score(entry));
+        assertEquals(17, TranspositionTable.depth(entry));
+        assertEquals(TranspositionTable.BOUND_LOWER, TranspositionTable.bound(entry));
+    }
+
+    @Test
+    public void otherKeyInSameSlot_isAMiss() {
+        TranspositionTable table = new TranspositionTable(1);
+        table.newSearch();
+        table.store(KEY, 0, 5, 3, TranspositionTable.BOUND_EXACT);
+        assertEquals(0L, table.probe(KEY ^ (1L << 60)));
+        assertEquals(0L, new TranspositionTable(1).probe(0L));
+    }
+
+    @Test
+    public void deeperEntry_isKeptUntilNextSearch() {
+        TranspositionTable table = new TranspositionTable(1);
+        table.newSearch();
+        long other = KEY ^ (1L << 60);
+        table.store(KEY, 0, 5, 8, TranspositionTable.BOUND_EXACT);
+        table.store(other, 0, 5, 2, TranspositionTable.BOUND_EXACT);
+        assertEquals(8, TranspositionTable.depth(table.probe(KEY)));
+        table.newSearch();
+        table.store(other, 0, 5, 2, TranspositionTable.BOUND_EXACT);
+        assertEquals(0L, table.probe(KEY));
+        assertEquals(2, TranspositionTable.depth(table.probe(other)));
+    }
+
+    @Test
+    public void search_countsProbesAndHits() {
+        Engine engine = new Engine(1);
+        engine.search(Position.fromFen(Position.START_FEN), SearchLimits.depth(5));
+        TranspositionTable table = engine.getTranspositionTable();
+        assertTrue(table.getProbes() > 0);
+        assertTrue(table.getHits() > 0);
+        assertTrue(table.getHitRate() > 0 && table.getHitRate() < 1);
+        assertTrue(table.hashfull() > 0);
+    }
+}
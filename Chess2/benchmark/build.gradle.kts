@@ -0,0 +1,32 @@
+// JMH benchmarks for the rules engine. Run with: ./gradlew :benchmark:jmh
+// Results are written to build/results/jmh/results.json, with allocation rates from the GC profiler.
+
+plugins {
+    java
+    alias(libs.plugins.jmh)
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+// The rules engine is plain Java, so it is compiled here straight from the app sources
+// (minus the Android UI classes) to benchmark it on a regular JVM.
+sourceSets {
+    main {
+        java {
+            srcDir("../app/src/main/java")
+            exclude("**/*Activity.java", "**/*Adapter.java", "**/*Fragment.java")
+        }
+    }
+}
+
+jmh {
+    jmhVersion.set(libs.versions.jmh.get())
+    fork.set(1)
+    warmupIterations.set(3)
+    iterations.set(5)
+    profilers.add("gc")
+    resultFormat.set("JSON")
+}
@@ -0,0 +1,24 @@
+package com.bhram.chess2.benchmark;
+
+/**
+ * FEN strings of the positions the benchmarks run on
+ */
+final class BenchmarkPositions {
+
+    // Busy middlegame with both sides still able to castle
+    static final String MIDDLEGAME = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+    // Rook endgame with few pieces and open lines
+    static final String ENDGAME = "8/5pk1/6p1/8/3R4/6P1/5PKP/3r4 w - - 0 40";
+
+    private BenchmarkPositions() {
+    }
+
+    static String fen(String name) {
+        switch (name) {
+            case "middlegame": return MIDDLEGAME;
+            case "endgame": return ENDGAME;
+            default: throw new IllegalArgumentException("Unknown position: " + name);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.bhram.chess2.benchmark;
+
+import com.bhram.chess2.ChessGame;
+import com.bhram.chess2.Move;
+import com.bhram.chess2.MoveGenerator;
+import com.bhram.chess2.Position;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the ChessGame calls made each time a move is played
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class GameBenchmark {
+
+    @Param({"middlegame", "endgame"})
+    public String position;
+
+    // Number of moves already played when the benchmark starts, since repetition checks scale with it
+    @Param({"40"})
+    public int historyLength;
+
+    private ChessGame game;
+    private int fromRow;
+    private int fromCol;
+    private int toRow;
+    private int toCol;
+
+    @Setup
+    public void setUp() {
+        game = new ChessGame(BenchmarkPositions.fen(position));
+        // Play a fixed, spread-out choice of legal moves to build up a history
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        for (int i = 0; i < historyLength; i++) {
+            int move = pickMove(moves, i * 7);
+            game.selectPiece(Position.row(Move.from(move)), Position.col(Move.from(move)));
+            game.movePiece(Position.row(Move.to(move)), Position.col(Move.to(move)));
+            if (game.isGameOver()) {
+                throw new IllegalStateException("Game ended while building the history at move " + i);
+            }
+        }
+        int move = pickMove(moves, 0);
+        fromRow = Position.row(Move.from(move));
+        fromCol = Position.col(Move.from(move));
+        toRow = Position.row(Move.to(move));
+        toCol = Position.col(Move.to(move));
+    }
+
+    // Plays one move through the same select-then-move path the UI uses, then takes it back
+    @Benchmark
+    public boolean movePiece() {
+        game.selectPiece(fromRow, fromCol);
+        boolean moved = game.movePiece(toRow, toCol);
+        if (moved) {
+            game.takeBack();
+        }
+        return moved;
+    }
+
+    @Benchmark
+    public boolean isThreefoldRepetition() {
+        return game.isThreefoldRepetition();
+    }
+
+    private int pickMove(int[] moves, int index) {
+        Position current = Position.fromFen(game.getFen());
+        int count = MoveGenerator.generateLegalMoves(current, current.getSideToMove(), moves);
+        return moves[index % count];
+    }
+}
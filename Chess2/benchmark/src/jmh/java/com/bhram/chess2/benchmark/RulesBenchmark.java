@@ -0,0 +1,86 @@
+package com.bhram.chess2.benchmark;
+
+import com.bhram.chess2.ChessRules;
+import com.bhram.chess2.MoveList;
+import com.bhram.chess2.Piece;
+import com.bhram.chess2.Position;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the ChessRules queries the game asks on every move
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RulesBenchmark {
+
+    @Param({"middlegame", "endgame"})
+    public String position;
+
+    private Position board;
+    private Piece.Color side;
+    private boolean whiteTurn;
+    private final MoveList moves = new MoveList();
+
+    @Setup
+    public void setUp() {
+        board = Position.fromFen(BenchmarkPositions.fen(position));
+        side = board.getSideToMove();
+        whiteTurn = side == Piece.Color.WHITE;
+    }
+
+    // Valid moves of every piece of the side to move, the way the board UI asks for them
+    @Benchmark
+    public void getValidMoves(Blackhole blackhole) {
+        for (int row = 0; row < 8; row++) {
+            for (int col = 0; col < 8; col++) {
+                Piece piece = board.getPiece(row, col);
+                if (piece != null && piece.getColor() == side) {
+                    blackhole.consume(ChessRules.getValidMoves(board, row, col, whiteTurn));
+                }
+            }
+        }
+    }
+
+    // Same query filling one reused list, as the board UI does
+    @Benchmark
+    public int getValidMovesReused() {
+        int total = 0;
+        for (int row = 0; row < 8; row++) {
+            for (int col = 0; col < 8; col++) {
+                Piece piece = board.getPiece(row, col);
+                if (piece != null && piece.getColor() == side) {
+                    total += ChessRules.getValidMoves(board, row, col, whiteTurn, moves).size();
+                }
+            }
+        }
+        return total;
+    }
+
+    @Benchmark
+    public boolean isInCheckmate() {
+        return ChessRules.isInCheckmate(board, side);
+    }
+
+    @Benchmark
+    public boolean isInStalemate() {
+        return ChessRules.isInStalemate(board, side);
+    }
+
+    @Benchmark
+    public void canCastle(Blackhole blackhole) {
+        blackhole.consume(ChessRules.canCastle(board, side, true));
+        blackhole.consume(ChessRules.canCastle(board, side, false));
+    }
+}
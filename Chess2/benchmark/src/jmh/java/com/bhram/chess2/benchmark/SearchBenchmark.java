@@ -0,0 +1,68 @@
+package com.bhram.chess2.benchmark;
+
+import com.bhram.chess2.Position;
+import com.bhram.chess2.engine.Engine;
+import com.bhram.chess2.engine.SearchLimits;
+import com.bhram.chess2.engine.SearchResult;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of a fixed-depth engine search. Besides the time per search it
+ * reports the nodes searched, which is what move ordering and pruning changes
+ * show up in first.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SearchBenchmark {
+
+    @Param({"middlegame", "endgame"})
+    public String position;
+
+    @Param({"6"})
+    public int depth;
+
+    @Param({"1"})
+    public int threads;
+
+    private Position board;
+    private Engine engine;
+
+    // Nodes searched, averaged per search in the results
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Nodes {
+        public long nodes;
+    }
+
+    @Setup
+    public void setUp() {
+        board = Position.fromFen(BenchmarkPositions.fen(position));
+        engine = new Engine(Engine.DEFAULT_HASH_MEGABYTES, threads);
+    }
+
+    // Every search starts from an empty table, as the first move of a game would
+    @Setup(Level.Invocation)
+    public void clearTable() {
+        engine.clear();
+    }
+
+    @Benchmark
+    public int search(Nodes counter) {
+        SearchResult result = engine.search(board, SearchLimits.depth(depth));
+        counter.nodes += result.getNodes();
+        return result.getBestMove();
+    }
+}